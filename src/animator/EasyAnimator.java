@@ -1,12 +1,21 @@
 package animator;
 
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 
+import animator.model.ColumnarAnimation;
 import animator.model.SimpleAnimation;
 import animator.model.SimpleAnimationModel;
 import animator.util.AnimationFileReader;
+import animator.util.BinaryAnimationWriter;
+import animator.util.LoadStats;
+import animator.util.ModelCache;
 import animator.util.TweenModelBuilder;
+import animator.view.AbstractVisualView;
 import animator.view.ViewCreator;
 
 /**
@@ -17,7 +26,24 @@ public class EasyAnimator {
   /**
    * This main method takes in a list of arguments and creates a model and a
    * view based on that model. The argument list specifies an input file, a view
-   * type, an output method, and a tempo.
+   * type, an output method, and a tempo. The other arguments are:
+   * <ul>
+   *   <li>"-model simple|columnar": the model implementation to load into</li>
+   *   <li>"-parallel": read the input file on all available cores</li>
+   *   <li>"-bulk": check the whole file before reporting its invalid commands</li>
+   *   <li>"-ob file": save the input in the binary format; needs no view type</li>
+   *   <li>"-cache dir": keep files that have been read in the binary format</li>
+   *   <li>"-shapes a,b": read only the named shapes, using a saved index</li>
+   *   <li>"-if" more than once, or "-manifest file": load several files into one
+   *   model, each in its own namespace</li>
+   *   <li>"-stats file|out": write a JSON report of the load</li>
+   *   <li>"-fps n": frames drawn per second by the visual views, or 0 for one
+   *   per tick</li>
+   *   <li>"-render passive|active": let Swing paint each frame, or draw it from
+   *   a render thread</li>
+   * </ul>
+   * The "-ob", "-cache" and "-shapes" arguments can only be used with one input
+   * file.
    *
    * @param args argument List
    * @throws IOException Thrown when file is not found.
@@ -25,13 +51,23 @@ public class EasyAnimator {
   public static void main(String[] args) throws IOException {
     Scanner scan;
     SimpleAnimationModel model = new SimpleAnimation();
-    TweenModelBuilder<SimpleAnimationModel> builder = new SimpleAnimation.Builder();
+    String modelType = "simple";
+    boolean bulk = false;
+    String binaryOutput = "";
+    String cacheDirectory = "";
+    String shapeNames = "";
+    String statsOutput = "";
     ViewCreator createView;
     String inputFile = "";
+    List<String> inputFiles = new ArrayList<>();
+    String manifest = "";
     ViewCreator.ViewType viewType = ViewCreator.ViewType.NULL;
     String output = "out";
     int tempo = 1;
+    int frameRate = AbstractVisualView.DEFAULT_FRAME_RATE;
+    AbstractVisualView.RenderMode renderMode = AbstractVisualView.RenderMode.PASSIVE;
     AnimationFileReader reader = new AnimationFileReader();
+    boolean parallel = false;
     String s1 = "";
 
     for (int i = 0; i < args.length; i++) {
@@ -39,7 +75,12 @@ public class EasyAnimator {
       switch (s1) {
         case "-if":
           inputFile = args[i + 1];
-          model = reader.readFile(inputFile, builder);
+          inputFiles.add(inputFile);
+          i++;
+          break;
+        case "-manifest":
+          manifest = args[i + 1];
+          inputFile = manifest;
           i++;
           break;
         case "-iv":
@@ -54,17 +95,147 @@ public class EasyAnimator {
           tempo = Integer.parseInt(args[i + 1]);
           i++;
           break;
+        case "-model":
+          modelType = args[i + 1];
+          i++;
+          break;
+        case "-bulk":
+          bulk = true;
+          break;
+        case "-ob":
+          binaryOutput = args[i + 1];
+          i++;
+          break;
+        case "-cache":
+          cacheDirectory = args[i + 1];
+          i++;
+          break;
+        case "-shapes":
+          shapeNames = args[i + 1];
+          i++;
+          break;
+        case "-fps":
+          frameRate = Integer.parseInt(args[i + 1]);
+          i++;
+          break;
+        case "-render":
+          if (args[i + 1].equals("active")) {
+            renderMode = AbstractVisualView.RenderMode.ACTIVE;
+          } else if (args[i + 1].equals("passive")) {
+            renderMode = AbstractVisualView.RenderMode.PASSIVE;
+          } else {
+            throw new IllegalArgumentException("Invalid render mode: " + args[i + 1]);
+          }
+          i++;
+          break;
+        case "-stats":
+          statsOutput = args[i + 1];
+          i++;
+          break;
+        case "-parallel":
+          parallel = true;
+          break;
         default:
           throw new IllegalArgumentException("Invalid arguments: " + s1);
       }
     }
 
+    boolean merge = !manifest.isEmpty() || (inputFiles.size() > 1);
+    if (merge && (!binaryOutput.isEmpty() || !cacheDirectory.isEmpty()
+            || !shapeNames.isEmpty())) {
+      throw new IllegalArgumentException("Only one input file can be used with -ob, -cache "
+              + "or -shapes");
+    }
+
+    if (!inputFile.isEmpty() && !binaryOutput.isEmpty()) {
+      BinaryAnimationWriter.convert(inputFile, binaryOutput);
+      if (viewType.equals(ViewCreator.ViewType.NULL)) {
+        return;
+      }
+    }
+
+    if (!inputFile.isEmpty()) {
+      TweenModelBuilder<SimpleAnimationModel> builder = getModelBuilder(modelType, bulk);
+      LoadStats stats = new LoadStats();
+      if (!statsOutput.isEmpty()) {
+        builder = stats.instrument(builder);
+      }
+      List<String> namespaces = new ArrayList<>();
+      if (!manifest.isEmpty()) {
+        inputFiles.clear();
+        AnimationFileReader.readManifestEntries(manifest, inputFiles, namespaces);
+      } else {
+        for (String file : inputFiles) {
+          namespaces.add(AnimationFileReader.defaultNamespace(file));
+        }
+      }
+
+      stats.start();
+      if (merge) {
+        model = reader.readFiles(inputFiles, namespaces, builder);
+      } else if (!shapeNames.isEmpty()) {
+        model = reader.readShapes(inputFile, Arrays.asList(shapeNames.split(",")), builder);
+      } else if (!cacheDirectory.isEmpty()) {
+        model = new ModelCache(cacheDirectory).readFile(inputFile, builder);
+      } else if (parallel) {
+        model = reader.readFileInParallel(inputFile, builder);
+      } else {
+        model = reader.readFile(inputFile, builder);
+      }
+      stats.stop();
+
+      if (!statsOutput.isEmpty()) {
+        for (String file : inputFiles) {
+          stats.addInput(file);
+        }
+        stats.recordTimelineSize(model.getTimelineSize());
+        writeStats(stats, statsOutput);
+      }
+    }
+
     createView = new ViewCreator();
     if ((model == null) || (viewType.equals(ViewCreator.ViewType.NULL))) {
       throw new IllegalArgumentException("Missing input file or view type argument\n" + inputFile
               + ", " + viewType + ", " + output + ", " + tempo);
     } else {
-      createView.create(viewType, model, tempo, output);
+      createView.create(viewType, model, tempo, output, frameRate, renderMode);
+    }
+  }
+
+  /**
+   * This method writes the JSON report of the load stats to a file, or to the
+   * console if the output is "out".
+   *
+   * @param stats  stats of the load
+   * @param output location of where to send the report to
+   * @throws IOException Thrown when the file cannot be written.
+   */
+  private static void writeStats(LoadStats stats, String output) throws IOException {
+    if (output.equals("out")) {
+      System.out.print(stats.toJson());
+    } else {
+      try (PrintWriter out = new PrintWriter(output)) {
+        out.print(stats.toJson());
+      }
+    }
+  }
+
+  /**
+   * This method creates a builder for the specified model implementation.
+   *
+   * @param modelType String model type
+   * @param bulk      true, to build in bulk mode
+   * @return builder for the model
+   */
+  private static TweenModelBuilder<SimpleAnimationModel> getModelBuilder(String modelType,
+                                                                         boolean bulk) {
+    switch (modelType) {
+      case "simple":
+        return new SimpleAnimation.Builder(new SimpleAnimation(), bulk);
+      case "columnar":
+        return new SimpleAnimation.Builder(new ColumnarAnimation(), bulk);
+      default:
+        throw new IllegalArgumentException("Invalid model type argument");
     }
   }
 
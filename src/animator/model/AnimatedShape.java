@@ -53,7 +53,7 @@ public class AnimatedShape implements IAnimatedShape {
     if (!validateShapeType(size)) {
       throw new IllegalArgumentException("Illegal shape size parameters");
     }
-    this.initialSize = size;
+    this.initialSize = SizeParams.of(size);
     this.appearTime = appearTime;
     this.disappearTime = disappearTime;
     this.layer = new Layer("", 0);
@@ -93,7 +93,7 @@ public class Animations implements IAnimations {
 
   @Override
   public void setSizeParams1(List<Double> sizeParams1) {
-    this.sizeParams1 = sizeParams1;
+    this.sizeParams1 = SizeParams.of(sizeParams1);
   }
 
   @Override
@@ -21,8 +21,8 @@ public class ChangeShapeSize extends Animations {
     this.position1 = changedShape.getInitialPosition();
     this.color1 = changedShape.getInitialColor();
     this.rotation1 = changedShape.getInitialRotation();
-    this.sizeParams1 = sizeParams1;
-    this.sizeParams2 = sizeParams2;
+    this.sizeParams1 = SizeParams.of(sizeParams1);
+    this.sizeParams2 = SizeParams.of(sizeParams2);
     this.time1 = time1;
     this.time2 = time2;
     if (!validateAnimationTimes()) {
@@ -0,0 +1,940 @@
+package animator.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import animator.model.enums.AnimateTypes;
+import animator.model.enums.ShapeType;
+
+/**
+ * This class is an implementation of the SimpleAnimationModel meant for animations
+ * with a very large number of keyframes. Instead of keeping an Animation object for
+ * every move, color change, size change, and rotation, each shape keeps its keyframes
+ * of each type in columns of primitive arrays holding the beginning times, end times,
+ * and final values. The values a keyframe begins from are the final values of the
+ * keyframe before it, so they are not stored at all. Animation objects are only
+ * created when the model is asked for them, such as by getAnimations or getTimeline.
+ * Values are stored as floats, which is the precision they are read from files in.
+ */
+public class ColumnarAnimation implements SimpleAnimationModel {
+  private List<IAnimatedShape> shapes;
+  private Map<String, ShapeRecord> records;
+  private ITimeline<IAnimatedShape> lifetimes;
+  private List<ILayer> layers;
+  private ILayer defaultLayer;
+  private int shapeCount;
+  private int nextSeq;
+  private int lastTick;
+  private ShapeRecord[] drawOrder;
+
+  /**
+   * The constructor for the ColumnarAnimation that initializes an empty model.
+   */
+  public ColumnarAnimation() {
+    shapes = new ArrayList<>();
+    records = new HashMap<>();
+    lifetimes = new Timeline<>();
+    layers = new ArrayList<>();
+    defaultLayer = null;
+    shapeCount = 0;
+    nextSeq = 0;
+    lastTick = -1;
+    drawOrder = null;
+  }
+
+  /**
+   * Creates a new shape and adds it to the model in the default layer.
+   *
+   * @param name    shape name
+   * @param type    shape type
+   * @param color1  shape color
+   * @param initial shape's initial position
+   * @param params  shape's size
+   * @param time1   time of appearance
+   * @param time2   time of disappearance
+   */
+  @Override
+  public void createShape(String name, ShapeType type, IRGB color1,
+                          IPosition2D initial, List<Double> params, Integer time1, Integer time2) {
+    IAnimatedShape shape1 = new AnimatedShape(name, type, color1, initial, params, time1, time2);
+    if (defaultLayer == null) {
+      defaultLayer = new Layer("layer", 0);
+    }
+    shape1.setLayer(defaultLayer);
+    defaultLayer.addShape(shape1);
+    addShapeRecord(shape1);
+  }
+
+  /**
+   * Creates a new shape and adds it to the model in the layer with the given name.
+   *
+   * @param name      shape name
+   * @param type      shape type
+   * @param color1    shape color
+   * @param initial   shape's initial position
+   * @param params    shape's size
+   * @param time1     time of appearance
+   * @param time2     time of disappearance
+   * @param layer     layer the shape is in
+   */
+  @Override
+  public void createShape(String name, ShapeType type, IRGB color1, IPosition2D initial,
+                          List<Double> params, Integer time1, Integer time2, String layer) {
+    IAnimatedShape shape1 = new AnimatedShape(name, type, color1, initial, params, time1, time2);
+    for (int i = 0; i < layers.size(); i++) {
+      if (layers.get(i).getLayerName().equals(layer)) {
+        shape1.setLayer(layers.get(i));
+        layers.get(i).addShape(shape1);
+      }
+    }
+    addShapeRecord(shape1);
+  }
+
+  /**
+   * Copies a given shape and adds in into the model.
+   * @param shape   shape to copy
+   */
+  @Override
+  public void copyShape(IAnimatedShape shape) {
+    createShape(shape.getShapeName(), shape.getShapeType(), shape.getInitialColor(),
+            shape.getInitialPosition(), shape.getInitialSize(), shape.getAppearTime(),
+            shape.getDisappearT());
+  }
+
+  /**
+   * Creates and adds a new layer to the animation with the specified layer name
+   * and order number. Layers are kept sorted from smallest order number to highest.
+   *
+   * @param name    layer name
+   * @param order   layer order number
+   */
+  @Override
+  public void addLayer(String name, int order) {
+    int index = 0;
+    while ((index < layers.size()) && (layers.get(index).getOrder() <= order)) {
+      index++;
+    }
+    layers.add(index, new Layer(name, order));
+  }
+
+  /**
+   * Sets the layer of the shape with specified name to the given layer.
+   *
+   * @param shape   shape name
+   * @param layer   layer to set shape to
+   */
+  @Override
+  public void setShapeLayer(String shape, ILayer layer) {
+    getShapeByName(shape).setLayer(layer);
+    drawOrder = null;
+  }
+
+  /**
+   * Copies the final values of a given animation into the keyframes of its shape.
+   * APPEAR and DISAPPEAR animations are not copied, since they are given by the
+   * shape's lifetime.
+   * @param animate   animation to copy
+   */
+  @Override
+  public void copyAnimation(IAnimations animate) {
+    ShapeRecord record = records.get(animate.getChangedShape().getShapeName());
+    if (record == null) {
+      throw new IllegalArgumentException("Animation's shape does not exist in animation.");
+    }
+    KeyframeColumns columns = record.columns(animate.getAnimateType());
+    if ((columns != null) && (animate.getTime2() < animate.getTime1())) {
+      addReversed(record, animate);
+    }
+    else if (columns != null) {
+      addKeyframe(columns, animate.getTime1(), animate.getTime2(),
+              finalValues(animate, columns.width()));
+    }
+  }
+
+  @Override
+  public IAnimatedShape getShape(int shapeIndex) {
+    return shapes.get(shapeIndex);
+  }
+
+  @Override
+  public IAnimatedShape getShapeByName(String name) {
+    ShapeRecord record = records.get(name);
+    if (record == null) {
+      return null;
+    }
+    return record.shape;
+  }
+
+  @Override
+  public List<IAnimatedShape> getShapes() {
+    return this.shapes;
+  }
+
+  /**
+   * Gets the list of animations in order of beginning time. Animations that begin
+   * at the same time are in the reverse of the order they were added in, as they
+   * are in a SimpleAnimation. The Animation objects are created by this method.
+   * @return  animation list
+   */
+  @Override
+  public List<IAnimations> getAnimations() {
+    List<Entry> entries = new ArrayList<>();
+    for (IAnimatedShape shape : shapes) {
+      ShapeRecord record = records.get(shape.getShapeName());
+      collectEntries(record, Integer.MIN_VALUE, Integer.MAX_VALUE, entries);
+      entries.addAll(record.reversed);
+    }
+    Collections.sort(entries, new Comparator<Entry>() {
+      @Override
+      public int compare(Entry e1, Entry e2) {
+        if (e1.time1 != e2.time1) {
+          return Integer.compare(e1.time1, e2.time1);
+        }
+        return Integer.compare(e2.seq, e1.seq);
+      }
+    });
+    return toAnimations(entries);
+  }
+
+  /**
+   * Gets the timeline list. Each index is a tick holding the animations occurring at
+   * that tick, which are created when the tick is accessed.
+   * @return  timeline
+   */
+  @Override
+  public List<List<IAnimations>> getTimeline() {
+    return new AbstractList<List<IAnimations>>() {
+      @Override
+      public List<IAnimations> get(int tick) {
+        if ((tick < 0) || (tick >= size())) {
+          throw new IndexOutOfBoundsException("Tick " + tick + " is not in the timeline");
+        }
+        return animationsAtTick(tick);
+      }
+
+      @Override
+      public int size() {
+        return Math.max(lifetimes.getLastTick(), lastTick) + 1;
+      }
+    };
+  }
+
+  /**
+   * Gets the number of entries in the timeline, counting the keyframes in each
+   * shape's columns.
+   * @return  number of timeline entries
+   */
+  @Override
+  public int getTimelineSize() {
+    int size = 0;
+    for (ShapeRecord record : records.values()) {
+      size += 2 + record.moves.size() + record.colors.size() + record.sizes.size()
+              + record.rotations.size();
+    }
+    return size;
+  }
+
+  @Override
+  public List<IAnimations> getAnimationsAt(int tick) {
+    return getAnimationsBetween(tick, tick);
+  }
+
+  @Override
+  public List<IAnimations> getAnimationsBetween(int from, int to) {
+    List<Entry> entries = new ArrayList<>();
+    for (IAnimatedShape shape : shapes) {
+      collectEntries(records.get(shape.getShapeName()), from, to, entries);
+    }
+    sortByStart(entries);
+    return toAnimations(entries);
+  }
+
+  @Override
+  public List<IAnimations> getKeyframes(IAnimatedShape shape, AnimateTypes type) {
+    ShapeRecord record = records.get(shape.getShapeName());
+    if ((record == null) || (record.columns(type) == null)) {
+      return Collections.emptyList();
+    }
+    KeyframeColumns columns = record.columns(type);
+    List<IAnimations> keyframes = new ArrayList<>(columns.size());
+    for (int i = 0; i < columns.size(); i++) {
+      keyframes.add(toAnimation(record, type, i));
+    }
+    return Collections.unmodifiableList(keyframes);
+  }
+
+  /**
+   * Fills a frame with the state of every shape visible at the given tick, reading
+   * the values straight from the keyframe columns.
+   * @param tick    tick to evaluate
+   * @param reuse   frame to fill, or null to create a new one
+   * @return        filled frame
+   */
+  @Override
+  public FrameState evaluate(int tick, FrameState reuse) {
+    return evaluate(tick, tick, reuse);
+  }
+
+  /**
+   * Fills a frame with the state of every shape visible at the tick before the given
+   * time, with the keyframes occurring at that tick interpolated to the time.
+   * @param time    time to evaluate, in ticks
+   * @param reuse   frame to fill, or null to create a new one
+   * @return        filled frame
+   */
+  @Override
+  public FrameState evaluateAt(double time, FrameState reuse) {
+    return evaluate((int) Math.floor(time), time, reuse);
+  }
+
+  private FrameState evaluate(int tick, double time, FrameState reuse) {
+    FrameState frameState = reuse;
+    if (frameState == null) {
+      frameState = new FrameState();
+    }
+    frameState.clear(tick);
+    if (drawOrder == null) {
+      drawOrder = records.values().toArray(new ShapeRecord[records.size()]);
+      Arrays.sort(drawOrder, new Comparator<ShapeRecord>() {
+        @Override
+        public int compare(ShapeRecord r1, ShapeRecord r2) {
+          int order1 = r1.shape.getLayer().getOrder();
+          int order2 = r2.shape.getLayer().getOrder();
+          if (order1 != order2) {
+            return Integer.compare(order1, order2);
+          }
+          return Integer.compare(r1.order, r2.order);
+        }
+      });
+    }
+    for (ShapeRecord record : drawOrder) {
+      IAnimatedShape shape = record.shape;
+      if ((shape.getAppearTime() <= tick) && (shape.getDisappearT() >= tick)) {
+        int index = frameState.add(shape);
+        frameState.setPosition(index, currentValue(record, record.moves, 0, tick, time),
+                currentValue(record, record.moves, 1, tick, time));
+        frameState.setSize(index, currentValue(record, record.sizes, 0, tick, time),
+                currentValue(record, record.sizes, record.sizes.width() - 1, tick, time));
+        frameState.setColor(index, currentValue(record, record.colors, 0, tick, time),
+                currentValue(record, record.colors, 1, tick, time),
+                currentValue(record, record.colors, 2, tick, time));
+        frameState.setRotation(index, currentValue(record, record.rotations, 0, tick, time));
+      }
+    }
+    return frameState;
+  }
+
+  @Override
+  public void moveShape(IAnimatedShape shape, IPosition2D newPosition, Integer time1,
+                        Integer time2) {
+    ShapeRecord record = validRecord(shape, time1, time2);
+    if (time2 < time1) {
+      addReversed(record, new MoveShape(shape, shape.getInitialPosition(), newPosition,
+              time1, time2));
+      return;
+    }
+    if (record.moves.overlaps(time1, time2)) {
+      throw new IllegalArgumentException("Invalid move");
+    }
+    addKeyframe(record.moves, time1, time2,
+            new float[] {(float) newPosition.xValue(), (float) newPosition.yValue()});
+  }
+
+  @Override
+  public void changeShapeColor(IAnimatedShape shape, IRGB newColor, Integer time1,
+                               Integer time2) {
+    ShapeRecord record = validRecord(shape, time1, time2);
+    if (time2 < time1) {
+      addReversed(record, new ChangeShapeColor(shape, shape.getInitialColor(), newColor,
+              time1, time2));
+      return;
+    }
+    if (record.colors.overlaps(time1, time2)) {
+      throw new IllegalArgumentException("Invalid color change");
+    }
+    addKeyframe(record.colors, time1, time2, new float[] {(float) newColor.redValue(),
+        (float) newColor.greenValue(), (float) newColor.blueValue()});
+  }
+
+  @Override
+  public void changeShapeSize(IAnimatedShape shape, List<Double> newSizeParams, Integer time1,
+                              Integer time2) {
+    ShapeRecord record = validRecord(shape, time1, time2);
+    if (time2 < time1) {
+      addReversed(record, new ChangeShapeSize(shape, shape.getInitialSize(),
+              newSizeParams, time1, time2));
+      return;
+    }
+    if (record.sizes.overlaps(time1, time2)
+            || (newSizeParams.size() != record.sizes.width())) {
+      throw new IllegalArgumentException("Invalid size change");
+    }
+    float[] values = new float[newSizeParams.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = newSizeParams.get(i).floatValue();
+    }
+    addKeyframe(record.sizes, time1, time2, values);
+  }
+
+  @Override
+  public void rotateShape(IAnimatedShape shape, Integer rotation, Integer time1, Integer time2) {
+    ShapeRecord record = validRecord(shape, time1, time2);
+    if (time2 < time1) {
+      addReversed(record, new RotateShape(shape, shape.getInitialRotation(), rotation,
+              time1, time2));
+      return;
+    }
+    if (record.rotations.overlaps(time1, time2)) {
+      throw new IllegalArgumentException("Invalid rotation");
+    }
+    addKeyframe(record.rotations, time1, time2, new float[] {rotation});
+  }
+
+  @Override
+  public String printAnimation() {
+    StringBuilder shapesString = new StringBuilder("Shapes:\n");
+    StringBuilder animationString = new StringBuilder();
+
+    for (int i = 0; i < shapes.size(); i++) {
+      shapesString.append(shapes.get(i).toString());
+      shapesString.append("\n\n");
+    }
+
+    List<IAnimations> animations = getAnimations();
+    for (int i = 0; i < animations.size(); i++) {
+      if (animations.get(i).getAnimateType() != AnimateTypes.APPEAR
+              && animations.get(i).getAnimateType() != AnimateTypes.DISAPPEAR) {
+        animationString.append(animations.get(i).toString());
+        if (i != (animations.size() - 1)) {
+          animationString.append("\n");
+        }
+      }
+    }
+    return shapesString.append(animationString).toString();
+  }
+
+  @Override
+  public String getShapeStatus(int shapeIndex) {
+    return shapes.get(shapeIndex).toString();
+  }
+
+  /**
+   * Removes the keyframe of the given type occurring to a shape at the given time.
+   *
+   * @param shape shape being animated
+   * @param type  animation type
+   * @param time  time of animation
+   */
+  @Override
+  public void removeAnimation(IAnimatedShape shape, AnimateTypes type, Integer time) {
+    ShapeRecord record = records.get(shape.getShapeName());
+    KeyframeColumns columns = (record == null) ? null : record.columns(type);
+    int index = (columns == null) ? -1 : columns.activeAt(time);
+    if (index < 0) {
+      throw new IllegalArgumentException("Invalid animation to remove");
+    }
+    columns.remove(index);
+    updateLastTick();
+  }
+
+  @Override
+  public void removeShape(int shapeIndex) {
+    IAnimatedShape tempShape = shapes.remove(shapeIndex);
+    records.remove(tempShape.getShapeName());
+    drawOrder = null;
+    lifetimes.remove(tempShape.getAppearTime(), tempShape);
+    updateLastTick();
+  }
+
+  @Override
+  public void removeShapeByName(String name) {
+    ShapeRecord record = records.get(name);
+    if (record != null) {
+      removeShape(shapes.indexOf(record.shape));
+    }
+  }
+
+  @Override
+  public IPosition2D calcCurrPosition(IAnimatedShape shape, int time) {
+    ShapeRecord record = records.get(shape.getShapeName());
+    if (record == null) {
+      return shape.getInitialPosition();
+    }
+    return positionOf(record, record.moves.latest(time));
+  }
+
+  @Override
+  public IRGB calcCurrColor(IAnimatedShape shape, int time) {
+    ShapeRecord record = records.get(shape.getShapeName());
+    if (record == null) {
+      return shape.getInitialColor();
+    }
+    return colorOf(record, record.colors.latest(time));
+  }
+
+  @Override
+  public List<Double> calcCurrSize(IAnimatedShape shape, int time) {
+    ShapeRecord record = records.get(shape.getShapeName());
+    if (record == null) {
+      return shape.getInitialSize();
+    }
+    return sizeOf(record, record.sizes.latest(time));
+  }
+
+  @Override
+  public Integer calcCurrRotation(IAnimatedShape shape, int time) {
+    ShapeRecord record = records.get(shape.getShapeName());
+    if (record == null) {
+      return shape.getInitialRotation();
+    }
+    return rotationOf(record, record.rotations.latest(time));
+  }
+
+  @Override
+  public IPosition2D calcShapeCenter(ShapeType type, IPosition2D pos, List<Double> size) {
+    return SimpleAnimation.shapeCenter(type, pos, size);
+  }
+
+  /**
+   * Adds a shape to the model with empty keyframe columns and adds its lifetime to
+   * the timeline.
+   * @param shape   shape to add
+   */
+  private void addShapeRecord(IAnimatedShape shape) {
+    if (records.containsKey(shape.getShapeName())) {
+      throw new IllegalArgumentException("Shape " + shape.getShapeName() + " already exists");
+    }
+    ShapeRecord record = new ShapeRecord(shape, shapeCount++, nextSeq);
+    nextSeq += 2;
+    records.put(shape.getShapeName(), record);
+    drawOrder = null;
+    shapes.add(shape);
+    lifetimes.add(shape.getAppearTime(), shape.getDisappearT(), shape);
+  }
+
+  /**
+   * Gets the record of a shape that an animation from time1 to time2 is being added
+   * to, checking that the shape is in the model and exists during those times. An
+   * animation that ends before it begins is allowed; it is kept by addReversed.
+   * @param shape   shape being animated
+   * @param time1   beginning time of animation
+   * @param time2   end time of animation
+   * @return        shape's record
+   */
+  private ShapeRecord validRecord(IAnimatedShape shape, int time1, int time2) {
+    if ((time1 < shape.getAppearTime()) || (time2 > shape.getDisappearT())) {
+      throw new IllegalArgumentException("Invalid times for an animation");
+    }
+    ShapeRecord record = records.get(shape.getShapeName());
+    if (record == null) {
+      throw new IllegalArgumentException("Animation's shape does not exist in animation.");
+    }
+    return record;
+  }
+
+  /**
+   * Keeps an animation that ends before it begins. It occurs during no ticks, so it
+   * is not a keyframe and does not change the shape; it is only listed by
+   * getAnimations.
+   * @param record    shape's record
+   * @param animate   animation to keep
+   */
+  private void addReversed(ShapeRecord record, IAnimations animate) {
+    record.reversed.add(new Entry(record, animate, nextSeq++));
+  }
+
+  /**
+   * Sets the beginning values of an animation kept by addReversed to the values its
+   * shape has at its beginning time.
+   * @param record    shape's record
+   * @param animate   animation that ends before it begins
+   * @return          the animation
+   */
+  private IAnimations reversedAnimation(ShapeRecord record, IAnimations animate) {
+    int time = animate.getTime1();
+    animate.setPosition1(positionOf(record, record.moves.latest(time)));
+    animate.setColor1(colorOf(record, record.colors.latest(time)));
+    animate.setSizeParams1(sizeOf(record, record.sizes.latest(time)));
+    animate.setRotation1(rotationOf(record, record.rotations.latest(time)));
+    return animate;
+  }
+
+  private void addKeyframe(KeyframeColumns columns, int time1, int time2, float[] values) {
+    columns.add(time1, time2, nextSeq++, values);
+    lastTick = Math.max(lastTick, time2);
+  }
+
+  /**
+   * Recalculates the latest end time of all keyframes after keyframes are removed.
+   */
+  private void updateLastTick() {
+    lastTick = -1;
+    for (ShapeRecord record : records.values()) {
+      for (AnimateTypes type : ShapeRecord.KEYFRAME_TYPES) {
+        lastTick = Math.max(lastTick, record.columns(type).lastTime());
+      }
+    }
+  }
+
+  /**
+   * Creates the STILL animation of a shape at a tick where it has no animation. The
+   * STILL animation holds the values the shape was left with by its earlier
+   * animations.
+   * @param shape   shape that is still
+   * @param tick    tick the shape is still at
+   * @return        STILL animation
+   */
+  private IAnimations stillAt(IAnimatedShape shape, int tick) {
+    IAnimations still = new StillShape(shape, tick);
+    still.setPosition1(calcCurrPosition(shape, tick));
+    still.setColor1(calcCurrColor(shape, tick));
+    still.setSizeParams1(calcCurrSize(shape, tick));
+    still.setRotation1(calcCurrRotation(shape, tick));
+    return still;
+  }
+
+  /**
+   * Gets the animations occurring at the given tick grouped by shape, with the shapes
+   * ordered from the bottom-most layer up and by the order they were added within a
+   * layer. A visible shape with no animation at the tick is given a STILL animation.
+   * @param tick  tick of the animations
+   * @return      animations at the tick
+   */
+  private List<IAnimations> animationsAtTick(int tick) {
+    List<IAnimatedShape> visibleShapes = lifetimes.getActiveAt(tick);
+    Collections.sort(visibleShapes, new Comparator<IAnimatedShape>() {
+      @Override
+      public int compare(IAnimatedShape s1, IAnimatedShape s2) {
+        if (s1.getLayer().getOrder() != s2.getLayer().getOrder()) {
+          return Integer.compare(s1.getLayer().getOrder(), s2.getLayer().getOrder());
+        }
+        return Integer.compare(records.get(s1.getShapeName()).order,
+                records.get(s2.getShapeName()).order);
+      }
+    });
+
+    List<IAnimations> animationsAtT = new ArrayList<>();
+    List<Entry> entries = new ArrayList<>();
+    for (IAnimatedShape shape : visibleShapes) {
+      entries.clear();
+      collectEntries(records.get(shape.getShapeName()), tick, tick, entries);
+      if (entries.isEmpty()) {
+        animationsAtT.add(stillAt(shape, tick));
+      }
+      else {
+        sortByStart(entries);
+        animationsAtT.addAll(toAnimations(entries));
+      }
+    }
+    return animationsAtT;
+  }
+
+  /**
+   * Adds the shape's APPEAR, DISAPPEAR, and keyframes that occur during [from, to]
+   * to the list of entries.
+   * @param record    shape's record
+   * @param from      first tick of the range
+   * @param to        last tick of the range
+   * @param entries   list to add to
+   */
+  private void collectEntries(ShapeRecord record, int from, int to, List<Entry> entries) {
+    int appear = record.shape.getAppearTime();
+    int disappear = record.shape.getDisappearT();
+    if ((appear >= from) && (appear <= to)) {
+      entries.add(new Entry(record, AnimateTypes.APPEAR, -1, appear, record.appearSeq));
+    }
+    if ((disappear >= from) && (disappear <= to)) {
+      entries.add(new Entry(record, AnimateTypes.DISAPPEAR, -1, disappear,
+              record.appearSeq + 1));
+    }
+    for (AnimateTypes type : ShapeRecord.KEYFRAME_TYPES) {
+      KeyframeColumns columns = record.columns(type);
+      for (int i = columns.firstEndingFrom(from); (i < columns.size())
+              && (columns.time1(i) <= to); i++) {
+        entries.add(new Entry(record, type, i, columns.time1(i), columns.seq(i)));
+      }
+    }
+  }
+
+  private void sortByStart(List<Entry> entries) {
+    Collections.sort(entries, new Comparator<Entry>() {
+      @Override
+      public int compare(Entry e1, Entry e2) {
+        if (e1.time1 != e2.time1) {
+          return Integer.compare(e1.time1, e2.time1);
+        }
+        return Integer.compare(e1.seq, e2.seq);
+      }
+    });
+  }
+
+  private List<IAnimations> toAnimations(List<Entry> entries) {
+    List<IAnimations> animations = new ArrayList<>(entries.size());
+    for (Entry entry : entries) {
+      if (entry.animation != null) {
+        animations.add(reversedAnimation(entry.record, entry.animation));
+      }
+      else {
+        animations.add(toAnimation(entry.record, entry.type, entry.index));
+      }
+    }
+    return animations;
+  }
+
+  /**
+   * Creates the Animation object for an entry of a shape. The Animation begins from
+   * the values left by the keyframes before it.
+   * @param record    shape's record
+   * @param type      animation type
+   * @param index     index of the keyframe, if it is one
+   * @return          animation
+   */
+  private IAnimations toAnimation(ShapeRecord record, AnimateTypes type, int index) {
+    IAnimatedShape shape = record.shape;
+    if (type == AnimateTypes.APPEAR) {
+      return new ShapeAppears(shape, shape.getAppearTime());
+    }
+    if (type == AnimateTypes.DISAPPEAR) {
+      return new ShapeDisappears(shape, shape.getDisappearT());
+    }
+
+    KeyframeColumns columns = record.columns(type);
+    int time1 = columns.time1(index);
+    int time2 = columns.time2(index);
+    IAnimations animation;
+    switch (type) {
+      case MOVE:
+        animation = new MoveShape(shape, positionOf(record, index - 1),
+                positionOf(record, index), time1, time2);
+        break;
+      case CHANGECOLOR:
+        animation = new ChangeShapeColor(shape, colorOf(record, index - 1),
+                colorOf(record, index), time1, time2);
+        break;
+      case CHANGESIZE:
+        animation = new ChangeShapeSize(shape, sizeOf(record, index - 1),
+                sizeOf(record, index), time1, time2);
+        break;
+      case ROTATE:
+        animation = new RotateShape(shape, rotationOf(record, index - 1),
+                rotationOf(record, index), time1, time2);
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid animation type");
+    }
+    if (type != AnimateTypes.MOVE) {
+      animation.setPosition1(positionOf(record, record.moves.latest(time1)));
+    }
+    if (type != AnimateTypes.CHANGECOLOR) {
+      animation.setColor1(colorOf(record, record.colors.latest(time1)));
+    }
+    if (type != AnimateTypes.CHANGESIZE) {
+      animation.setSizeParams1(sizeOf(record, record.sizes.latest(time1)));
+    }
+    if (type != AnimateTypes.ROTATE) {
+      animation.setRotation1(rotationOf(record, record.rotations.latest(time1)));
+    }
+    return animation;
+  }
+
+  /**
+   * Gets one component of a shape's property at the given tick. If a keyframe is
+   * occurring at the tick, the value is interpolated between the values left by the
+   * keyframe before it and by the keyframe itself.
+   * @param record      shape's record
+   * @param columns     keyframes of the property
+   * @param component   component of the property
+   * @param tick        tick being evaluated
+   * @param time        time to interpolate to
+   * @return            value at the tick
+   */
+  private double currentValue(ShapeRecord record, KeyframeColumns columns, int component,
+                              int tick, double time) {
+    int index = columns.latest(tick);
+    if (index < 0) {
+      return initialValue(record, columns, component);
+    }
+    if (columns.time2(index) < tick) {
+      return columns.value(index, component);
+    }
+    double initVal;
+    if (index > 0) {
+      initVal = columns.value(index - 1, component);
+    }
+    else {
+      initVal = initialValue(record, columns, component);
+    }
+    return FrameState.tween(initVal, columns.value(index, component), columns.time1(index),
+            columns.time2(index), time);
+  }
+
+  private double initialValue(ShapeRecord record, KeyframeColumns columns, int component) {
+    IAnimatedShape shape = record.shape;
+    if (columns == record.moves) {
+      return (component == 0) ? shape.getInitialPosition().xValue()
+              : shape.getInitialPosition().yValue();
+    }
+    if (columns == record.colors) {
+      switch (component) {
+        case 0:
+          return shape.getInitialColor().redValue();
+        case 1:
+          return shape.getInitialColor().greenValue();
+        default:
+          return shape.getInitialColor().blueValue();
+      }
+    }
+    if (columns == record.sizes) {
+      return SizeParams.of(shape.getInitialSize()).valueAt(component);
+    }
+    return shape.getInitialRotation();
+  }
+
+  private IPosition2D positionOf(ShapeRecord record, int index) {
+    if (index < 0) {
+      return record.shape.getInitialPosition();
+    }
+    return new Position2D(record.moves.value(index, 0), record.moves.value(index, 1));
+  }
+
+  private IRGB colorOf(ShapeRecord record, int index) {
+    if (index < 0) {
+      return record.shape.getInitialColor();
+    }
+    return new RGB(record.colors.value(index, 0), record.colors.value(index, 1),
+            record.colors.value(index, 2));
+  }
+
+  private List<Double> sizeOf(ShapeRecord record, int index) {
+    if (index < 0) {
+      return record.shape.getInitialSize();
+    }
+    double[] size = new double[record.sizes.width()];
+    for (int i = 0; i < size.length; i++) {
+      size[i] = record.sizes.value(index, i);
+    }
+    return new SizeParams(size);
+  }
+
+  private Integer rotationOf(ShapeRecord record, int index) {
+    if (index < 0) {
+      return record.shape.getInitialRotation();
+    }
+    return (int) record.rotations.value(index, 0);
+  }
+
+  /**
+   * Gets the values an animation leaves its shape with.
+   * @param animate   animation
+   * @param width     number of values
+   * @return          final values
+   */
+  private float[] finalValues(IAnimations animate, int width) {
+    float[] values = new float[width];
+    switch (animate.getAnimateType()) {
+      case MOVE:
+        values[0] = (float) animate.getPosition2().xValue();
+        values[1] = (float) animate.getPosition2().yValue();
+        break;
+      case CHANGECOLOR:
+        values[0] = (float) animate.getColor2().redValue();
+        values[1] = (float) animate.getColor2().greenValue();
+        values[2] = (float) animate.getColor2().blueValue();
+        break;
+      case CHANGESIZE:
+        for (int i = 0; i < width; i++) {
+          values[i] = animate.getSizeParams2().get(i).floatValue();
+        }
+        break;
+      case ROTATE:
+        values[0] = animate.getRotation2();
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid animation type");
+    }
+    return values;
+  }
+
+  /**
+   * A shape in the model along with its keyframe columns, the order it was added in,
+   * the sequence numbers of its APPEAR and DISAPPEAR, and its animations that end
+   * before they begin.
+   */
+  private static final class ShapeRecord {
+    private static final AnimateTypes[] KEYFRAME_TYPES = {AnimateTypes.MOVE,
+        AnimateTypes.CHANGECOLOR, AnimateTypes.CHANGESIZE, AnimateTypes.ROTATE};
+
+    private final IAnimatedShape shape;
+    private final int order;
+    private final int appearSeq;
+    private final KeyframeColumns moves;
+    private final KeyframeColumns colors;
+    private final KeyframeColumns sizes;
+    private final KeyframeColumns rotations;
+    private final List<Entry> reversed;
+
+    private ShapeRecord(IAnimatedShape shape, int order, int appearSeq) {
+      this.shape = shape;
+      this.order = order;
+      this.appearSeq = appearSeq;
+      moves = new KeyframeColumns(2);
+      colors = new KeyframeColumns(3);
+      sizes = new KeyframeColumns(shape.getInitialSize().size());
+      rotations = new KeyframeColumns(1);
+      reversed = new ArrayList<>();
+    }
+
+    private KeyframeColumns columns(AnimateTypes type) {
+      switch (type) {
+        case MOVE:
+          return moves;
+        case CHANGECOLOR:
+          return colors;
+        case CHANGESIZE:
+          return sizes;
+        case ROTATE:
+          return rotations;
+        default:
+          return null;
+      }
+    }
+  }
+
+  /**
+   * An APPEAR, DISAPPEAR, or keyframe of a shape found by a query, which is turned
+   * into an Animation object once the entries are sorted, or an animation that ends
+   * before it begins, which is kept as an Animation object.
+   */
+  private static final class Entry {
+    private final ShapeRecord record;
+    private final AnimateTypes type;
+    private final int index;
+    private final int time1;
+    private final int seq;
+    private final IAnimations animation;
+
+    private Entry(ShapeRecord record, AnimateTypes type, int index, int time1, int seq) {
+      this.record = record;
+      this.type = type;
+      this.index = index;
+      this.time1 = time1;
+      this.seq = seq;
+      this.animation = null;
+    }
+
+    private Entry(ShapeRecord record, IAnimations animation, int seq) {
+      this.record = record;
+      this.type = animation.getAnimateType();
+      this.index = -1;
+      this.time1 = animation.getTime1();
+      this.seq = seq;
+      this.animation = animation;
+    }
+  }
+}
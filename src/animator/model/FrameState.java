@@ -0,0 +1,212 @@
+package animator.model;
+
+import animator.model.enums.ShapeType;
+
+/**
+ * This class holds the state of every visible shape at one tick of an animation,
+ * as filled in by a model's evaluate method. Shapes are in the order they are drawn
+ * in, from the bottom-most layer up. The values are kept in primitive arrays that
+ * are reused each time the frame is evaluated, so evaluating a tick into the same
+ * FrameState does not allocate once the arrays are large enough for the animation.
+ */
+public final class FrameState {
+  private int tick;
+  private int count;
+  private IAnimatedShape[] shapes;
+  private ShapeType[] types;
+  private int[] layers;
+  private double[] x;
+  private double[] y;
+  private double[] width;
+  private double[] height;
+  private double[] red;
+  private double[] green;
+  private double[] blue;
+  private double[] rotation;
+
+  /**
+   * Constructor for an empty frame.
+   */
+  public FrameState() {
+    tick = 0;
+    count = 0;
+    allocate(16);
+  }
+
+  /**
+   * Gets the tick the frame was evaluated at.
+   * @return  tick
+   */
+  public int getTick() {
+    return tick;
+  }
+
+  /**
+   * Gets the number of visible shapes in the frame.
+   * @return  shape count
+   */
+  public int getCount() {
+    return count;
+  }
+
+  public IAnimatedShape getShape(int index) {
+    return shapes[index];
+  }
+
+  public ShapeType getType(int index) {
+    return types[index];
+  }
+
+  /**
+   * Gets the order number of the layer the shape is in.
+   * @param index   index of shape in the frame
+   * @return        layer order number
+   */
+  public int getLayer(int index) {
+    return layers[index];
+  }
+
+  public double getX(int index) {
+    return x[index];
+  }
+
+  public double getY(int index) {
+    return y[index];
+  }
+
+  /**
+   * Gets the shape's first size parameter, which is the width, side length,
+   * x radius, or radius depending on the shape type.
+   * @param index   index of shape in the frame
+   * @return        first size parameter
+   */
+  public double getWidth(int index) {
+    return width[index];
+  }
+
+  /**
+   * Gets the shape's second size parameter, which is the height or y radius. Shapes
+   * with a single size parameter have the same width and height.
+   * @param index   index of shape in the frame
+   * @return        second size parameter
+   */
+  public double getHeight(int index) {
+    return height[index];
+  }
+
+  public double getRed(int index) {
+    return red[index];
+  }
+
+  public double getGreen(int index) {
+    return green[index];
+  }
+
+  public double getBlue(int index) {
+    return blue[index];
+  }
+
+  /**
+   * Gets the shape's rotation in degrees.
+   * @param index   index of shape in the frame
+   * @return        rotation
+   */
+  public double getRotation(int index) {
+    return rotation[index];
+  }
+
+  /**
+   * Empties the frame so a new tick can be evaluated into it.
+   * @param newTick   tick being evaluated
+   */
+  void clear(int newTick) {
+    tick = newTick;
+    count = 0;
+  }
+
+  /**
+   * Adds a shape to the end of the frame. Its values are set afterwards.
+   * @param shape   shape being added
+   * @return        index of the shape in the frame
+   */
+  int add(IAnimatedShape shape) {
+    if (count == shapes.length) {
+      grow();
+    }
+    shapes[count] = shape;
+    types[count] = shape.getShapeType();
+    layers[count] = shape.getLayer().getOrder();
+    return count++;
+  }
+
+  void setPosition(int index, double newX, double newY) {
+    x[index] = newX;
+    y[index] = newY;
+  }
+
+  void setSize(int index, double newWidth, double newHeight) {
+    width[index] = newWidth;
+    height[index] = newHeight;
+  }
+
+  void setColor(int index, double newRed, double newGreen, double newBlue) {
+    red[index] = newRed;
+    green[index] = newGreen;
+    blue[index] = newBlue;
+  }
+
+  void setRotation(int index, double newRotation) {
+    rotation[index] = newRotation;
+  }
+
+  /**
+   * Calculates the value of a property partway through an animation by linearly
+   * interpolating between its beginning and final values. The current time can be
+   * partway between two ticks; a time past the end time gives the final value.
+   * @param initVal     value at the beginning time
+   * @param finalVal    value at the end time
+   * @param initTick    beginning time
+   * @param finalTick   end time
+   * @param time        current time
+   * @return            value at the current time
+   */
+  static double tween(double initVal, double finalVal, int initTick, int finalTick,
+                      double time) {
+    double tick = Math.min(time, finalTick);
+    double v1 = (finalTick - tick) / (finalTick - initTick);
+    double v2 = (tick - initTick) / (finalTick - initTick);
+    return (initVal * v1) + (finalVal * v2);
+  }
+
+  private void allocate(int capacity) {
+    shapes = new IAnimatedShape[capacity];
+    types = new ShapeType[capacity];
+    layers = new int[capacity];
+    x = new double[capacity];
+    y = new double[capacity];
+    width = new double[capacity];
+    height = new double[capacity];
+    red = new double[capacity];
+    green = new double[capacity];
+    blue = new double[capacity];
+    rotation = new double[capacity];
+  }
+
+  /**
+   * Doubles the capacity of the arrays, keeping the shapes already in the frame.
+   */
+  private void grow() {
+    IAnimatedShape[] oldShapes = shapes;
+    ShapeType[] oldTypes = types;
+    int[] oldLayers = layers;
+    double[][] oldValues = {x, y, width, height, red, green, blue, rotation};
+    allocate(shapes.length * 2);
+    System.arraycopy(oldShapes, 0, shapes, 0, count);
+    System.arraycopy(oldTypes, 0, types, 0, count);
+    System.arraycopy(oldLayers, 0, layers, 0, count);
+    double[][] newValues = {x, y, width, height, red, green, blue, rotation};
+    for (int i = 0; i < newValues.length; i++) {
+      System.arraycopy(oldValues[i], 0, newValues[i], 0, count);
+    }
+  }
+}
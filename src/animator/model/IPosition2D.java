@@ -9,4 +9,16 @@ public interface IPosition2D {
   Double getX();
 
   Double getY();
+
+  /**
+   * Gets the x position without boxing it.
+   * @return  x position
+   */
+  double xValue();
+
+  /**
+   * Gets the y position without boxing it.
+   * @return  y position
+   */
+  double yValue();
 }
@@ -12,6 +12,24 @@ public interface IRGB {
 
   Double getBlue();
 
+  /**
+   * Gets the red value without boxing it.
+   * @return  red value
+   */
+  double redValue();
+
+  /**
+   * Gets the green value without boxing it.
+   * @return  green value
+   */
+  double greenValue();
+
+  /**
+   * Gets the blue value without boxing it.
+   * @return  blue value
+   */
+  double blueValue();
+
   /**
    * This method converts the RGB value into a format that is readable
    * by the SVG.
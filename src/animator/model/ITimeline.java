@@ -0,0 +1,64 @@
+package animator.model;
+
+import java.util.List;
+
+/**
+ * This is the interface for the Timeline class. A timeline stores each item
+ * once along with the interval of ticks, [start, end], during which it occurs.
+ * It can be queried for the items occurring at a tick or during a range of ticks.
+ *
+ * @param <T> type of the items held in the timeline
+ */
+public interface ITimeline<T> {
+
+  /**
+   * Adds an item that occurs from the start tick to the end tick, inclusive.
+   * @param start   first tick of the item
+   * @param end     last tick of the item
+   * @param item    item to add
+   */
+  void add(int start, int end, T item);
+
+  /**
+   * Removes an item that was added with the given start tick. The item itself is
+   * removed, not another item equal to it.
+   * @param start   first tick of the item
+   * @param item    item to remove
+   * @return        true, if the item was found and removed
+   */
+  boolean remove(int start, T item);
+
+  /**
+   * Gets all items occurring at the given tick, in order of their start ticks.
+   * @param tick    tick to look up
+   * @return        items occurring at the tick
+   */
+  List<T> getActiveAt(int tick);
+
+  /**
+   * Gets all items whose interval overlaps the range [from, to], in order of
+   * their start ticks.
+   * @param from    first tick of the range
+   * @param to      last tick of the range
+   * @return        items overlapping the range
+   */
+  List<T> getOverlapping(int from, int to);
+
+  /**
+   * Gets every item in the timeline, in order of their start ticks.
+   * @return  all items
+   */
+  List<T> getAll();
+
+  /**
+   * Gets the latest end tick of all items in the timeline.
+   * @return  last tick, or -1 if the timeline is empty
+   */
+  int getLastTick();
+
+  /**
+   * Gets the number of items in the timeline.
+   * @return  item count
+   */
+  int size();
+}
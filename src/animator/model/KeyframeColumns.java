@@ -0,0 +1,186 @@
+package animator.model;
+
+/**
+ * This class stores the animations of one type performed on a shape as columns of
+ * primitive arrays rather than as Animation objects. Keyframe i begins at time1[i],
+ * ends at time2[i], and leaves the shape with the values from values[i * width] to
+ * values[i * width + width - 1]. A keyframe begins from the values left by the
+ * keyframe before it, so beginning values are not stored. Keyframes are kept sorted
+ * by beginning time.
+ */
+final class KeyframeColumns {
+  private static final int[] NO_TIMES = new int[0];
+  private static final float[] NO_VALUES = new float[0];
+
+  private final int width;
+  private int count;
+  private int[] time1;
+  private int[] time2;
+  private int[] seq;
+  private float[] values;
+
+  /**
+   * Constructor for empty keyframe columns.
+   * @param width   number of values each keyframe leaves the shape with
+   */
+  KeyframeColumns(int width) {
+    this.width = width;
+    count = 0;
+    time1 = NO_TIMES;
+    time2 = NO_TIMES;
+    seq = NO_TIMES;
+    values = NO_VALUES;
+  }
+
+  int width() {
+    return width;
+  }
+
+  int size() {
+    return count;
+  }
+
+  int time1(int index) {
+    return time1[index];
+  }
+
+  int time2(int index) {
+    return time2[index];
+  }
+
+  int seq(int index) {
+    return seq[index];
+  }
+
+  float value(int index, int component) {
+    return values[(index * width) + component];
+  }
+
+  /**
+   * Adds a keyframe in order of beginning time.
+   * @param start       beginning time
+   * @param end         end time
+   * @param sequence    order the keyframe was added to the model in
+   * @param newValues   values the keyframe leaves the shape with
+   * @return            index of the keyframe
+   */
+  int add(int start, int end, int sequence, float[] newValues) {
+    if (count == time1.length) {
+      int capacity = Math.max(4, count * 2);
+      time1 = copyOf(time1, capacity);
+      time2 = copyOf(time2, capacity);
+      seq = copyOf(seq, capacity);
+      float[] grown = new float[capacity * width];
+      System.arraycopy(values, 0, grown, 0, count * width);
+      values = grown;
+    }
+    int index = latest(start) + 1;
+    int moved = count - index;
+    System.arraycopy(time1, index, time1, index + 1, moved);
+    System.arraycopy(time2, index, time2, index + 1, moved);
+    System.arraycopy(seq, index, seq, index + 1, moved);
+    System.arraycopy(values, index * width, values, (index + 1) * width, moved * width);
+    time1[index] = start;
+    time2[index] = end;
+    seq[index] = sequence;
+    System.arraycopy(newValues, 0, values, index * width, width);
+    count++;
+    return index;
+  }
+
+  /**
+   * Removes the keyframe at the given index.
+   * @param index   index of keyframe
+   */
+  void remove(int index) {
+    int moved = count - index - 1;
+    System.arraycopy(time1, index + 1, time1, index, moved);
+    System.arraycopy(time2, index + 1, time2, index, moved);
+    System.arraycopy(seq, index + 1, seq, index, moved);
+    System.arraycopy(values, (index + 1) * width, values, index * width, moved * width);
+    count--;
+  }
+
+  /**
+   * Finds the keyframe that began most recently at or before the given time.
+   * @param time    latest beginning time
+   * @return        index of keyframe, or -1 if there is none
+   */
+  int latest(int time) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (time1[mid] <= time) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+    return low - 1;
+  }
+
+  /**
+   * Finds the keyframe occurring at the given time.
+   * @param time    time to look up
+   * @return        index of keyframe, or -1 if there is none
+   */
+  int activeAt(int time) {
+    int index = latest(time);
+    if ((index >= 0) && (time2[index] >= time)) {
+      return index;
+    }
+    return -1;
+  }
+
+  /**
+   * Checks if a keyframe occurs at any time in [start, end]. Keyframes of the same
+   * type do not overlap, so only the latest one to begin by the end has to be checked.
+   * @param start   first time of the range
+   * @param end     last time of the range
+   * @return        true, if a keyframe overlaps the range
+   */
+  boolean overlaps(int start, int end) {
+    int index = latest(end);
+    return (index >= 0) && (time2[index] >= start);
+  }
+
+  /**
+   * Finds the first keyframe that ends at or after the given time.
+   * @param time    time to search for
+   * @return        index of keyframe, or size() if there is none
+   */
+  int firstEndingFrom(int time) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (time2[mid] < time) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Gets the latest end time of the keyframes.
+   * @return  last end time, or -1 if there are no keyframes
+   */
+  int lastTime() {
+    int last = -1;
+    for (int i = 0; i < count; i++) {
+      last = Math.max(last, time2[i]);
+    }
+    return last;
+  }
+
+  private static int[] copyOf(int[] array, int capacity) {
+    int[] grown = new int[capacity];
+    System.arraycopy(array, 0, grown, 0, array.length);
+    return grown;
+  }
+}
@@ -27,6 +27,16 @@ public final class Position2D implements IPosition2D {
     return y;
   }
 
+  @Override
+  public double xValue() {
+    return x;
+  }
+
+  @Override
+  public double yValue() {
+    return y;
+  }
+
   @Override
   public String toString() {
     return String.format("(%.1f, %.1f)", this.x, this.y);
@@ -31,6 +31,21 @@ public class RGB implements IRGB {
     return blue;
   }
 
+  @Override
+  public double redValue() {
+    return red;
+  }
+
+  @Override
+  public double greenValue() {
+    return green;
+  }
+
+  @Override
+  public double blueValue() {
+    return blue;
+  }
+
   /**
    * This method converts the RGB value into a format that is readable
    * by the SVG.
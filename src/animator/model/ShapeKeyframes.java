@@ -0,0 +1,369 @@
+package animator.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import animator.model.enums.AnimateTypes;
+
+/**
+ * This class holds the animations performed on a single shape. The move, change
+ * color, change size, and rotate animations are each kept in their own List sorted
+ * by beginning time. When an animation is added or removed, the beginning values of
+ * the shape's animations that depend on it are updated, so every animation starts
+ * from the value left by the animation of the same type before it. Animations can
+ * also be deferred, which only checks them for overlaps, and added all at once later
+ * in order of beginning time.
+ */
+final class ShapeKeyframes {
+  private final IAnimatedShape shape;
+  private final Map<AnimateTypes, List<IAnimations>> tracks;
+  private final Map<AnimateTypes, TreeMap<Integer, Integer>> deferredTimes;
+  private final List<IAnimations> deferred;
+
+  /**
+   * Constructor for the keyframes of a shape that has no animations yet.
+   * @param shape   shape being animated
+   */
+  ShapeKeyframes(IAnimatedShape shape) {
+    this.shape = shape;
+    tracks = new EnumMap<>(AnimateTypes.class);
+    tracks.put(AnimateTypes.MOVE, new ArrayList<>());
+    tracks.put(AnimateTypes.CHANGECOLOR, new ArrayList<>());
+    tracks.put(AnimateTypes.CHANGESIZE, new ArrayList<>());
+    tracks.put(AnimateTypes.ROTATE, new ArrayList<>());
+    deferredTimes = new EnumMap<>(AnimateTypes.class);
+    deferred = new ArrayList<>();
+  }
+
+  /**
+   * Adds an animation in order of beginning time. The animation's beginning values
+   * are set from the animations before it, and the animations that follow it up to
+   * the next animation of the same type start from its final value.
+   * @param animation   animation to add
+   */
+  void add(IAnimations animation) {
+    List<IAnimations> track = tracks.get(animation.getAnimateType());
+    if (track == null) {
+      return;
+    }
+    int index = upperBound(track, animation.getTime1());
+    track.add(index, animation);
+
+    for (AnimateTypes type : tracks.keySet()) {
+      IAnimations latest;
+      if (type == animation.getAnimateType()) {
+        latest = (index > 0) ? track.get(index - 1) : null;
+      }
+      else {
+        latest = latest(type, animation.getTime1());
+      }
+      setBeginValue(animation, type, endValueOf(type, latest));
+    }
+    carryEndValue(animation.getAnimateType(), index, endValueOf(animation.getAnimateType(),
+            animation));
+  }
+
+  /**
+   * Defers adding an animation until addDeferred is called, if it does not overlap
+   * an animation of the same type that has been added or deferred. Only the
+   * beginning and end times of deferred animations are kept in order.
+   * @param animation   animation to defer
+   * @return            true, if the animation was deferred
+   */
+  boolean defer(IAnimations animation) {
+    AnimateTypes type = animation.getAnimateType();
+    if (!tracks.containsKey(type)
+            || overlaps(type, animation.getTime1(), animation.getTime2())) {
+      return false;
+    }
+    if (!deferredTimes.containsKey(type)) {
+      deferredTimes.put(type, new TreeMap<>());
+    }
+    deferredTimes.get(type).put(animation.getTime1(), animation.getTime2());
+    deferred.add(animation);
+    return true;
+  }
+
+  /**
+   * Checks if any animations have been deferred.
+   * @return  true, if animations are waiting to be added
+   */
+  boolean hasDeferred() {
+    return !deferred.isEmpty();
+  }
+
+  /**
+   * Adds the deferred animations in order of beginning time. When the shape has
+   * no other animations, each one is added after the animations before it, so the
+   * beginning values are chained in a single pass.
+   */
+  void addDeferred() {
+    Collections.sort(deferred, new Comparator<IAnimations>() {
+      @Override
+      public int compare(IAnimations a1, IAnimations a2) {
+        return a1.getTime1().compareTo(a2.getTime1());
+      }
+    });
+    for (IAnimations animation : deferred) {
+      add(animation);
+    }
+    deferred.clear();
+    deferredTimes.clear();
+  }
+
+  /**
+   * Removes an animation. The animations that followed it up to the next animation
+   * of the same type start from the value left before it instead.
+   * @param animation   animation to remove
+   */
+  void remove(IAnimations animation) {
+    List<IAnimations> track = tracks.get(animation.getAnimateType());
+    if (track == null) {
+      return;
+    }
+    int index = -1;
+    for (int i = upperBound(track, animation.getTime1() - 1); i < track.size(); i++) {
+      if (track.get(i) == animation) {
+        index = i;
+        break;
+      }
+    }
+    if (index < 0) {
+      return;
+    }
+    track.remove(index);
+    IAnimations before = (index > 0) ? track.get(index - 1) : null;
+    carryEndValue(animation.getAnimateType(), index - 1,
+            endValueOf(animation.getAnimateType(), before));
+  }
+
+  /**
+   * Finds the animation of the given type that began most recently at or before
+   * the given time.
+   * @param type    animation type
+   * @param time    latest beginning time
+   * @return        latest animation, or null if there is none
+   */
+  IAnimations latest(AnimateTypes type, int time) {
+    List<IAnimations> track = tracks.get(type);
+    if (track == null) {
+      return null;
+    }
+    int index = upperBound(track, time) - 1;
+    return (index >= 0) ? track.get(index) : null;
+  }
+
+  /**
+   * Sets the shape's position, size, color, and rotation at the given tick in a
+   * frame. A property that is being animated at the tick is interpolated to the
+   * given time, which is the tick or partway to the next one, and one that is not
+   * keeps the value left by its last animation.
+   * @param tick        tick being evaluated
+   * @param time        time to interpolate to
+   * @param frameState  frame to fill
+   * @param index       index of the shape in the frame
+   */
+  void evaluate(int tick, double time, FrameState frameState, int index) {
+    IAnimations move = latest(AnimateTypes.MOVE, tick);
+    if (move == null) {
+      frameState.setPosition(index, shape.getInitialPosition().xValue(),
+              shape.getInitialPosition().yValue());
+    }
+    else if (move.getTime2() >= tick) {
+      frameState.setPosition(index,
+              FrameState.tween(move.getPosition1().xValue(), move.getPosition2().xValue(),
+                      move.getTime1(), move.getTime2(), time),
+              FrameState.tween(move.getPosition1().yValue(), move.getPosition2().yValue(),
+                      move.getTime1(), move.getTime2(), time));
+    }
+    else {
+      frameState.setPosition(index, move.getPosition2().xValue(),
+              move.getPosition2().yValue());
+    }
+
+    IAnimations sizeChange = latest(AnimateTypes.CHANGESIZE, tick);
+    if (sizeChange == null) {
+      SizeParams size = SizeParams.of(shape.getInitialSize());
+      frameState.setSize(index, size.valueAt(0), size.valueAt(size.size() - 1));
+    }
+    else if (sizeChange.getTime2() >= tick) {
+      SizeParams size1 = SizeParams.of(sizeChange.getSizeParams1());
+      SizeParams size2 = SizeParams.of(sizeChange.getSizeParams2());
+      int last = size1.size() - 1;
+      frameState.setSize(index,
+              FrameState.tween(size1.valueAt(0), size2.valueAt(0), sizeChange.getTime1(),
+                      sizeChange.getTime2(), time),
+              FrameState.tween(size1.valueAt(last), size2.valueAt(last), sizeChange.getTime1(),
+                      sizeChange.getTime2(), time));
+    }
+    else {
+      SizeParams size = SizeParams.of(sizeChange.getSizeParams2());
+      frameState.setSize(index, size.valueAt(0), size.valueAt(size.size() - 1));
+    }
+
+    IAnimations colorChange = latest(AnimateTypes.CHANGECOLOR, tick);
+    if (colorChange == null) {
+      IRGB color = shape.getInitialColor();
+      frameState.setColor(index, color.redValue(), color.greenValue(), color.blueValue());
+    }
+    else if (colorChange.getTime2() >= tick) {
+      IRGB color1 = colorChange.getColor1();
+      IRGB color2 = colorChange.getColor2();
+      int time1 = colorChange.getTime1();
+      int time2 = colorChange.getTime2();
+      frameState.setColor(index,
+              FrameState.tween(color1.redValue(), color2.redValue(), time1, time2, time),
+              FrameState.tween(color1.greenValue(), color2.greenValue(), time1, time2, time),
+              FrameState.tween(color1.blueValue(), color2.blueValue(), time1, time2, time));
+    }
+    else {
+      IRGB color = colorChange.getColor2();
+      frameState.setColor(index, color.redValue(), color.greenValue(), color.blueValue());
+    }
+
+    IAnimations rotate = latest(AnimateTypes.ROTATE, tick);
+    if (rotate == null) {
+      frameState.setRotation(index, shape.getInitialRotation());
+    }
+    else if (rotate.getTime2() >= tick) {
+      frameState.setRotation(index, FrameState.tween(rotate.getRotation1(),
+              rotate.getRotation2(), rotate.getTime1(), rotate.getTime2(), time));
+    }
+    else {
+      frameState.setRotation(index, rotate.getRotation2());
+    }
+  }
+
+  /**
+   * Checks if an animation of the given type occurs at any tick in [time1, time2].
+   * Animations of the same type on a shape do not overlap, so the animations are
+   * sorted by ending time as well, and only the latest one to begin by time2 has to
+   * be checked. Deferred animations are checked the same way.
+   * @param type    animation type
+   * @param time1   first tick of the range
+   * @param time2   last tick of the range
+   * @return        true, if an animation of the type overlaps the range
+   */
+  boolean overlaps(AnimateTypes type, int time1, int time2) {
+    IAnimations latest = latest(type, time2);
+    if ((latest != null) && (latest.getTime2() >= time1)) {
+      return true;
+    }
+    TreeMap<Integer, Integer> times = deferredTimes.get(type);
+    if (times == null) {
+      return false;
+    }
+    Map.Entry<Integer, Integer> latestDeferred = times.floorEntry(time2);
+    return (latestDeferred != null) && (latestDeferred.getValue() >= time1);
+  }
+
+  /**
+   * Gets the animations of the given type, sorted by beginning time.
+   * @param type    animation type
+   * @return        read-only List of the animations
+   */
+  List<IAnimations> get(AnimateTypes type) {
+    List<IAnimations> track = tracks.get(type);
+    if (track == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(track);
+  }
+
+  /**
+   * Sets the given value as the beginning value of the following animation of the
+   * same type and of the animations of other types that begin before it.
+   * @param type    type of the animation at the index
+   * @param index   index of the animation leaving the value, or -1 for the start
+   * @param value   value left by the animation
+   */
+  private void carryEndValue(AnimateTypes type, int index, Object value) {
+    List<IAnimations> track = tracks.get(type);
+    int to = Integer.MAX_VALUE;
+    if ((index + 1) < track.size()) {
+      IAnimations next = track.get(index + 1);
+      setBeginValue(next, type, value);
+      to = next.getTime1();
+    }
+
+    for (Map.Entry<AnimateTypes, List<IAnimations>> entry : tracks.entrySet()) {
+      if (entry.getKey() == type) {
+        continue;
+      }
+      List<IAnimations> other = entry.getValue();
+      int first = (index >= 0) ? upperBound(other, track.get(index).getTime1() - 1) : 0;
+      for (int i = first; (i < other.size())
+              && (other.get(i).getTime1() < to); i++) {
+        setBeginValue(other.get(i), type, value);
+      }
+    }
+  }
+
+  /**
+   * Gets the value of the given type that an animation leaves the shape with.
+   * @param type        type of value
+   * @param animation   animation, or null for the shape's initial value
+   * @return            final value
+   */
+  private Object endValueOf(AnimateTypes type, IAnimations animation) {
+    switch (type) {
+      case MOVE:
+        return (animation == null) ? shape.getInitialPosition() : animation.getPosition2();
+      case CHANGECOLOR:
+        return (animation == null) ? shape.getInitialColor() : animation.getColor2();
+      case CHANGESIZE:
+        return (animation == null) ? shape.getInitialSize() : animation.getSizeParams2();
+      case ROTATE:
+        return (animation == null) ? shape.getInitialRotation() : animation.getRotation2();
+      default:
+        throw new IllegalArgumentException("Invalid animation type");
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private void setBeginValue(IAnimations animation, AnimateTypes type, Object value) {
+    switch (type) {
+      case MOVE:
+        animation.setPosition1((IPosition2D) value);
+        break;
+      case CHANGECOLOR:
+        animation.setColor1((IRGB) value);
+        break;
+      case CHANGESIZE:
+        animation.setSizeParams1((List<Double>) value);
+        break;
+      case ROTATE:
+        animation.setRotation1((Integer) value);
+        break;
+      default:
+        throw new IllegalArgumentException("Invalid animation type");
+    }
+  }
+
+  /**
+   * Finds the index of the first animation in a track that begins after the
+   * given time.
+   * @param track   animations sorted by beginning time
+   * @param time    time to search for
+   * @return        index of first animation beginning after the time
+   */
+  private static int upperBound(List<IAnimations> track, int time) {
+    int low = 0;
+    int high = track.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (track.get(mid).getTime1() <= time) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -1,7 +1,14 @@
 package animator.model;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import animator.model.enums.AnimateTypes;
 import animator.model.enums.ShapeType;
@@ -14,9 +21,18 @@ import animator.util.TweenModelBuilder;
  */
 public class SimpleAnimation implements SimpleAnimationModel {
   private List<IAnimatedShape> shapes;
+  private Map<String, IAnimatedShape> shapesByName;
   private List<IAnimations> animations;
-  private List<List<IAnimations>> timeline;
+  private List<IAnimations> addedAnimations;
+  private List<IAnimations> reversedAnimations;
+  private ITimeline<IAnimations> timeline;
+  private ITimeline<IAnimatedShape> lifetimes;
   private List<ILayer> layers;
+  private Map<IAnimatedShape, Integer> shapeOrder;
+  private Map<IAnimatedShape, ShapeKeyframes> keyframes;
+  private List<ShapeKeyframes> deferredKeyframes;
+  private int shapeCount;
+  private IAnimatedShape[] drawOrder;
 
   /**
    * The constructor for the SimpleAnimation that initializes the Lists
@@ -24,9 +40,18 @@ public class SimpleAnimation implements SimpleAnimationModel {
    */
   public SimpleAnimation() {
     shapes = new ArrayList<>();
+    shapesByName = new HashMap<>();
     animations = new ArrayList<>();
-    timeline = new ArrayList<>();
+    addedAnimations = new ArrayList<>();
+    reversedAnimations = new ArrayList<>();
+    timeline = new Timeline<>();
+    lifetimes = new Timeline<>();
     layers = new ArrayList<>();
+    shapeOrder = new IdentityHashMap<>();
+    keyframes = new IdentityHashMap<>();
+    deferredKeyframes = new ArrayList<>();
+    shapeCount = 0;
+    drawOrder = null;
   }
 
   /**
@@ -52,18 +77,7 @@ public class SimpleAnimation implements SimpleAnimationModel {
     layers.add(new Layer("layer", 0));
     shape1.setLayer(layers.get(0));
     layers.get(0).addShape(shape1);
-    shapes.add(shape1);
-
-    if (timeline.size() < time2) {
-      for (int i = timeline.size(); i <= time2; i++) {
-        timeline.add(i, new ArrayList<>());
-      }
-    }
-    timeline.get(time1).add(new ShapeAppears(shape1, time1));
-    timeline.get(time2).add(new ShapeDisappears(shape1, time2));
-    for (int i = (time1 + 1); i < time2; i++) {
-      timeline.get(i).add(new StillShape(shape1, i));
-    }
+    addShapeToTimeline(shape1);
 
     // ADDS IN THE APPEAR AND DISAPPEAR TIMES TO animations
     addNewAnimInTimeOrder(new ShapeAppears(shape1, time1));
@@ -94,22 +108,10 @@ public class SimpleAnimation implements SimpleAnimationModel {
         layers.get(i).addShape(shape1);
       }
     }
-    shapes.add(shape1);
-
-    if (timeline.size() < time2) {
-      for (int i = timeline.size(); i <= time2; i++) {
-        timeline.add(i, new ArrayList<>());
-      }
-    }
+    addShapeToTimeline(shape1);
 
-    addInitialShapeAnims(new ShapeAppears(shape1, time1), time1);
-    addInitialShapeAnims(new ShapeDisappears(shape1, time2), time2);
     addNewAnimInTimeOrder(new ShapeAppears(shape1, time1));
     addNewAnimInTimeOrder(new ShapeDisappears(shape1, time2));
-
-    for (int i = (time1 + 1); i < time2; i++) {
-      addInitialShapeAnims(new StillShape(shape1, i), i);
-    }
   }
 
   /**
@@ -161,6 +163,7 @@ public class SimpleAnimation implements SimpleAnimationModel {
   @Override
   public void setShapeLayer(String shape, ILayer layer) {
     getShapeByName(shape).setLayer(layer);
+    drawOrder = null;
   }
 
   /**
@@ -172,10 +175,6 @@ public class SimpleAnimation implements SimpleAnimationModel {
     if (getShapeByName(animate.getChangedShape().getShapeName()) != null) {
       addNewAnimInTimeOrder(animate);
       addNewAnimToTimeline(animate);
-      updateBeginAnimaPositions();
-      updateBeginAnimaColors();
-      updateBeginAnimaSizes();
-      updateBeginAnimaRotations();
     } else {
       throw new IllegalArgumentException("Animation's shape does not exist in animation.");
     }
@@ -194,18 +193,14 @@ public class SimpleAnimation implements SimpleAnimationModel {
   }
 
   /**
-   * This returns a shape with a name that matches the given name.
+   * This returns a shape with a name that matches the given name. Shapes are
+   * indexed by name when they are added, so this does not search the shapes List.
    * @param name    shape name
-   * @return        shape with shape name
+   * @return        shape with shape name, or null if there is none
    */
   @Override
   public IAnimatedShape getShapeByName(String name) {
-    for (int i = 0; i < shapes.size(); i++) {
-      if (shapes.get(i).getShapeName().equals(name)) {
-        return shapes.get(i);
-      }
-    }
-    return null;
+    return shapesByName.get(name);
   }
 
   /**
@@ -223,24 +218,117 @@ public class SimpleAnimation implements SimpleAnimationModel {
    */
   @Override
   public List<IAnimations> getAnimations() {
-    updateBeginAnimaPositions();
-    updateBeginAnimaColors();
-    updateBeginAnimaSizes();
-    updateBeginAnimaRotations();
+    sortAddedAnimations();
+    updateReversedAnimations();
     return this.animations;
   }
 
   /**
-   * Gets the timeline list.
+   * Gets the timeline list. The list is a view of the interval timeline where
+   * each index is a tick holding the animations occurring at that tick.
    * @return  timeline
    */
   @Override
   public List<List<IAnimations>> getTimeline() {
-    updateBeginAnimaPositions();
-    updateBeginAnimaColors();
-    updateBeginAnimaSizes();
-    updateBeginAnimaRotations();
-    return this.timeline;
+    return new TickListView();
+  }
+
+  /**
+   * Gets the number of entries in the timeline.
+   * @return  number of timeline entries
+   */
+  @Override
+  public int getTimelineSize() {
+    return timeline.size();
+  }
+
+  /**
+   * Gets the animations occurring at the given tick.
+   * @param tick  tick of the animations
+   * @return      animations at the tick
+   */
+  @Override
+  public List<IAnimations> getAnimationsAt(int tick) {
+    return timeline.getActiveAt(tick);
+  }
+
+  /**
+   * Gets the animations occurring during the given range of ticks.
+   * @param from  first tick of the range
+   * @param to    last tick of the range
+   * @return      animations overlapping the range
+   */
+  @Override
+  public List<IAnimations> getAnimationsBetween(int from, int to) {
+    return timeline.getOverlapping(from, to);
+  }
+
+  /**
+   * Gets the animations of the given type performed on a shape, sorted by
+   * beginning time.
+   * @param shape   shape being animated
+   * @param type    animation type
+   * @return        shape's keyframes of the type
+   */
+  @Override
+  public List<IAnimations> getKeyframes(IAnimatedShape shape, AnimateTypes type) {
+    ShapeKeyframes shapeKeyframes = keyframesOf(shape);
+    if (shapeKeyframes == null) {
+      return Collections.emptyList();
+    }
+    return shapeKeyframes.get(type);
+  }
+
+  /**
+   * Fills a frame with the state of every shape visible at the given tick. The
+   * shapes are gone through in drawing order, which is only sorted again after
+   * shapes are added, removed, or moved to another layer.
+   * @param tick    tick to evaluate
+   * @param reuse   frame to fill, or null to create a new one
+   * @return        filled frame
+   */
+  @Override
+  public FrameState evaluate(int tick, FrameState reuse) {
+    return evaluate(tick, tick, reuse);
+  }
+
+  /**
+   * Fills a frame with the state of every shape visible at the tick before the given
+   * time, with the animations occurring at that tick interpolated to the time.
+   * @param time    time to evaluate, in ticks
+   * @param reuse   frame to fill, or null to create a new one
+   * @return        filled frame
+   */
+  @Override
+  public FrameState evaluateAt(double time, FrameState reuse) {
+    return evaluate((int) Math.floor(time), time, reuse);
+  }
+
+  private FrameState evaluate(int tick, double time, FrameState reuse) {
+    FrameState frameState = reuse;
+    if (frameState == null) {
+      frameState = new FrameState();
+    }
+    frameState.clear(tick);
+    if (drawOrder == null) {
+      drawOrder = shapes.toArray(new IAnimatedShape[shapes.size()]);
+      Arrays.sort(drawOrder, new Comparator<IAnimatedShape>() {
+        @Override
+        public int compare(IAnimatedShape s1, IAnimatedShape s2) {
+          if (s1.getLayer().getOrder() != s2.getLayer().getOrder()) {
+            return Integer.compare(s1.getLayer().getOrder(), s2.getLayer().getOrder());
+          }
+          return Integer.compare(drawOrder(s1), drawOrder(s2));
+        }
+      });
+    }
+    for (IAnimatedShape shape : drawOrder) {
+      if ((shape.getAppearTime() <= tick) && (shape.getDisappearT() >= tick)) {
+        keyframes.get(shape).evaluate(tick, time, frameState,
+                frameState.add(shape));
+      }
+    }
+    return frameState;
   }
 
   /**
@@ -345,6 +433,8 @@ public class SimpleAnimation implements SimpleAnimationModel {
       shapesString.append("\n\n");
     }
 
+    sortAddedAnimations();
+    updateReversedAnimations();
     for (int i = 0; i < animations.size(); i++) {
       if (animations.get(i).getAnimateType() != AnimateTypes.APPEAR
               && animations.get(i).getAnimateType() != AnimateTypes.DISAPPEAR) {
@@ -380,28 +470,23 @@ public class SimpleAnimation implements SimpleAnimationModel {
    */
   @Override
   public void removeAnimation(IAnimatedShape shape, AnimateTypes type, Integer time) {
-    Integer time1 = 0;
-    Integer time2 = 0;
-    for (int i = 0; i < timeline.get(time).size(); i++) {
-      if (timeline.get(time).get(i).getChangedShape().equals(shape)
-              && timeline.get(time).get(i).getAnimateType().equals(type)) {
-        time1 = timeline.get(time).get(i).getTime1();
-        time2 = timeline.get(time).get(i).getTime2();
+    IAnimations toRemove = null;
+    for (IAnimations animation : timeline.getActiveAt(time)) {
+      if (animation.getChangedShape().equals(shape)
+              && animation.getAnimateType().equals(type)) {
+        toRemove = animation;
         break;
       }
-      if (i == (timeline.get(time).size() - 1)) {
-        throw new IllegalArgumentException("Invalid animation to remove");
-      }
     }
-    for (int j = time1; j <= time2; j++) {
-      for (int k = 0; k < timeline.get(j).size(); k++) {
-        if (timeline.get(j).get(k).getChangedShape().equals(shape)
-                && timeline.get(j).get(k).getAnimateType().equals(type)) {
-          timeline.get(j).remove(k);
-        }
-      }
+    if (toRemove == null) {
+      throw new IllegalArgumentException("Invalid animation to remove");
     }
+    Integer time1 = toRemove.getTime1();
+    Integer time2 = toRemove.getTime2();
+    timeline.remove(time1, toRemove);
+    keyframesOf(toRemove.getChangedShape()).remove(toRemove);
 
+    sortAddedAnimations();
     for (int i = 0; i < animations.size(); i++) {
       if (animations.get(i).getChangedShape().equals(shape)
               && animations.get(i).getAnimateType().equals(type)
@@ -425,19 +510,36 @@ public class SimpleAnimation implements SimpleAnimationModel {
   @Override
   public void removeShape(int shapeIndex) {
     IAnimatedShape tempShape = shapes.get(shapeIndex);
-    shapes.remove(shapeIndex);
-    for (int i = 0; i < timeline.size(); i++) {
-      for (int j = 0; j < timeline.get(i).size(); j++) {
-        if (timeline.get(i).get(j).getChangedShape().equals(tempShape)) {
-          timeline.get(i).remove(j);
-        }
+    lifetimes.remove(tempShape.getAppearTime(), tempShape);
+    for (IAnimations animation : timeline.getAll()) {
+      if (ownerOf(animation.getChangedShape()) == tempShape) {
+        timeline.remove(animation.getTime1(), animation);
       }
     }
-    for (int i = 0; i < animations.size(); i++) {
-      if (animations.get(i).getChangedShape().equals(tempShape)) {
+    sortAddedAnimations();
+    for (int i = animations.size() - 1; i >= 0; i--) {
+      if (ownerOf(animations.get(i).getChangedShape()) == tempShape) {
         animations.remove(i);
       }
     }
+    for (int i = reversedAnimations.size() - 1; i >= 0; i--) {
+      if (ownerOf(reversedAnimations.get(i).getChangedShape()) == tempShape) {
+        reversedAnimations.remove(i);
+      }
+    }
+    shapes.remove(shapeIndex);
+    if (shapesByName.get(tempShape.getShapeName()) == tempShape) {
+      shapesByName.remove(tempShape.getShapeName());
+      for (IAnimatedShape shape : shapes) {
+        if (shape.getShapeName().equals(tempShape.getShapeName())) {
+          shapesByName.put(shape.getShapeName(), shape);
+          break;
+        }
+      }
+    }
+    shapeOrder.remove(tempShape);
+    drawOrder = null;
+    keyframes.remove(tempShape);
   }
 
   /**
@@ -446,10 +548,10 @@ public class SimpleAnimation implements SimpleAnimationModel {
    */
   @Override
   public void removeShapeByName(String name) {
-    for (int i = 0; i < shapes.size(); i++) {
-      if (shapes.get(i).getShapeName().equals(name)) {
-        removeShape(i);
-      }
+    IAnimatedShape shape = shapesByName.get(name);
+    while (shape != null) {
+      removeShape(shapes.indexOf(shape));
+      shape = shapesByName.get(name);
     }
   }
 
@@ -464,13 +566,9 @@ public class SimpleAnimation implements SimpleAnimationModel {
    */
   @Override
   public IPosition2D calcCurrPosition(IAnimatedShape shape, int time) {
-    for (int i = time; i > -1; i--) {
-      for (int j = 0; j < timeline.get(i).size(); j++) {
-        if ((timeline.get(i).get(j).getChangedShape() == shape)
-                & (timeline.get(i).get(j).getAnimateType() == AnimateTypes.MOVE)) {
-          return timeline.get(i).get(j).getPosition2();
-        }
-      }
+    IAnimations latest = latestAnimation(shape, AnimateTypes.MOVE, time);
+    if (latest != null) {
+      return latest.getPosition2();
     }
     return shape.getInitialPosition();
   }
@@ -486,13 +584,9 @@ public class SimpleAnimation implements SimpleAnimationModel {
    */
   @Override
   public IRGB calcCurrColor(IAnimatedShape shape, int time) {
-    for (int i = time; i > -1; i--) {
-      for (int j = 0; j < timeline.get(i).size(); j++) {
-        if ((timeline.get(i).get(j).getChangedShape() == shape)
-                & (timeline.get(i).get(j).getAnimateType() == AnimateTypes.CHANGECOLOR)) {
-          return timeline.get(i).get(j).getColor2();
-        }
-      }
+    IAnimations latest = latestAnimation(shape, AnimateTypes.CHANGECOLOR, time);
+    if (latest != null) {
+      return latest.getColor2();
     }
     return shape.getInitialColor();
   }
@@ -508,13 +602,9 @@ public class SimpleAnimation implements SimpleAnimationModel {
    */
   @Override
   public List<Double> calcCurrSize(IAnimatedShape shape, int time) {
-    for (int i = time; i > -1; i--) {
-      for (int j = 0; j < timeline.get(i).size(); j++) {
-        if ((timeline.get(i).get(j).getChangedShape() == shape)
-                & (timeline.get(i).get(j).getAnimateType() == AnimateTypes.CHANGESIZE)) {
-          return timeline.get(i).get(j).getSizeParams2();
-        }
-      }
+    IAnimations latest = latestAnimation(shape, AnimateTypes.CHANGESIZE, time);
+    if (latest != null) {
+      return latest.getSizeParams2();
     }
     return shape.getInitialSize();
   }
@@ -529,13 +619,9 @@ public class SimpleAnimation implements SimpleAnimationModel {
    */
   @Override
   public Integer calcCurrRotation(IAnimatedShape shape, int time) {
-    for (int i = time; i > -1; i--) {
-      for (int j = 0; j < timeline.get(i).size(); j++) {
-        if ((timeline.get(i).get(j).getChangedShape() == shape)
-                & (timeline.get(i).get(j).getAnimateType() == AnimateTypes.ROTATE)) {
-          return timeline.get(i).get(j).getRotation2();
-        }
-      }
+    IAnimations latest = latestAnimation(shape, AnimateTypes.ROTATE, time);
+    if (latest != null) {
+      return latest.getRotation2();
     }
     return shape.getInitialRotation();
   }
@@ -550,6 +636,18 @@ public class SimpleAnimation implements SimpleAnimationModel {
    */
   @Override
   public IPosition2D calcShapeCenter(ShapeType type, IPosition2D pos, List<Double> size) {
+    return shapeCenter(type, pos, size);
+  }
+
+  /**
+   * Calculates a shape's center point. This is shared with the other model
+   * implementations in this package.
+   * @param type    shape type
+   * @param pos     shape's ref point position
+   * @param size    shape's size parameters
+   * @return        shape's center position
+   */
+  static IPosition2D shapeCenter(ShapeType type, IPosition2D pos, List<Double> size) {
     switch (type) {
       case RECTANGLE:
         return new Position2D(pos.getX() + (size.get(0) / 2), pos.getY() + (size.get(0) / 2));
@@ -564,259 +662,366 @@ public class SimpleAnimation implements SimpleAnimationModel {
     }
   }
 
+
   /**
    * Checks if the given Animation is valid and that it does not overlap
    * with another Animation of the same type occurring at the same time on
-   * the same shape.
+   * the same shape. Only the shape's keyframes of the same type are searched,
+   * so the check does not depend on how long the Animation is. An Animation of a
+   * shape that is not in the model is not valid. An Animation that ends before it
+   * begins occurs during no ticks, so it overlaps nothing.
    *
    * @param animate Animation to validate
    * @return true, if Animation is valid
    */
   private boolean isValidAnimation(IAnimations animate) {
-    for (int i = animate.getTime1(); i <= animate.getTime2(); i++) {
-      for (int j = 0; j < timeline.get(i).size(); j++) {
-        if ((timeline.get(i).get(j).getAnimateType() == animate.getAnimateType())
-                && (animate.getChangedShape().equals(timeline.get(i).get(j).getChangedShape()))) {
-          return false;
-        }
-      }
+    ShapeKeyframes shapeKeyframes = keyframesOf(animate.getChangedShape());
+    if (shapeKeyframes == null) {
+      return false;
     }
-    return true;
+    return isReversed(animate) || !shapeKeyframes.overlaps(animate.getAnimateType(),
+            animate.getTime1(), animate.getTime2());
+  }
+
+  /**
+   * Checks if the given Animation ends before it begins. Such an Animation is kept
+   * in the animations List, so it is printed, but it occurs during no ticks, so it
+   * is not added to the timeline or to its shape's keyframes and does not change
+   * the shape.
+   *
+   * @param animate Animation to check
+   * @return true, if the Animation ends before it begins
+   */
+  private static boolean isReversed(IAnimations animate) {
+    return animate.getTime2() < animate.getTime1();
+  }
+
+  /**
+   * Adds an Animation to the animations List and the timeline, but only checks it
+   * against the other Animations of its shape and type, leaving it to be added to
+   * the shape's keyframes by addDeferredAnimations. The Animation's beginning
+   * values are not set until then. This is used by the Builder's bulk mode.
+   *
+   * @param animate         Animation to add
+   * @param invalidMessage  message of the exception if the Animation is not valid
+   * @throws IllegalArgumentException if the Animation overlaps another or its
+   *                                  shape is not in the model
+   */
+  void deferAnimation(IAnimations animate, String invalidMessage) {
+    ShapeKeyframes shapeKeyframes = keyframesOf(animate.getChangedShape());
+    if (shapeKeyframes == null) {
+      throw new IllegalArgumentException(invalidMessage);
+    }
+    if (isReversed(animate)) {
+      addNewAnimInTimeOrder(animate);
+      reversedAnimations.add(animate);
+      return;
+    }
+    boolean first = !shapeKeyframes.hasDeferred();
+    if (!shapeKeyframes.defer(animate)) {
+      throw new IllegalArgumentException(invalidMessage);
+    }
+    if (first) {
+      deferredKeyframes.add(shapeKeyframes);
+    }
+    addNewAnimInTimeOrder(animate);
+    timeline.add(animate.getTime1(), animate.getTime2(), animate);
+  }
+
+  /**
+   * Adds the deferred Animations to the keyframes of their shapes. Each shape's
+   * Animations are sorted by beginning time once and added in that order.
+   */
+  void addDeferredAnimations() {
+    for (ShapeKeyframes shapeKeyframes : deferredKeyframes) {
+      shapeKeyframes.addDeferred();
+    }
+    deferredKeyframes.clear();
   }
 
   /**
    * Adds an Animation to the animations List in the order of beginning time.
+   * The Animation is held with the other newly added Animations until the List is
+   * next used, when they are all sorted into it at once. An Animation goes before
+   * the Animations that begin at the same time and were added before it.
    *
    * @param obj Animation to add
    */
   private void addNewAnimInTimeOrder(IAnimations obj) {
-    if (animations.isEmpty()) {
-      animations.add(obj);
-    } else {
-      for (int i = 0; i < animations.size(); i++) {
-        if (obj.getTime1() <= animations.get(i).getTime1()) {
-          animations.add(i, obj);
-          break;
-        } else if (i == (animations.size() - 1)) {
-          animations.add(obj);
-          break;
-        }
+    addedAnimations.add(obj);
+  }
+
+  /**
+   * Sorts the newly added Animations by beginning time and merges them into the
+   * animations List, so adding N Animations costs O(N log N) rather than shifting
+   * the List on every insertion.
+   */
+  private void sortAddedAnimations() {
+    if (addedAnimations.isEmpty()) {
+      return;
+    }
+    Collections.reverse(addedAnimations);
+    Collections.sort(addedAnimations, new Comparator<IAnimations>() {
+      @Override
+      public int compare(IAnimations a1, IAnimations a2) {
+        return a1.getTime1().compareTo(a2.getTime1());
+      }
+    });
+
+    List<IAnimations> merged = new ArrayList<>(animations.size() + addedAnimations.size());
+    int i = 0;
+    int j = 0;
+    while ((i < animations.size()) || (j < addedAnimations.size())) {
+      if ((j < addedAnimations.size()) && ((i == animations.size())
+              || (addedAnimations.get(j).getTime1() <= animations.get(i).getTime1()))) {
+        merged.add(addedAnimations.get(j++));
       }
+      else {
+        merged.add(animations.get(i++));
+      }
+    }
+    animations.clear();
+    animations.addAll(merged);
+    addedAnimations.clear();
+  }
+
+  /**
+   * Sets the beginning values of the Animations that end before they begin. They
+   * are not in their shapes' keyframes, so they begin from the values the shape has
+   * at their beginning time, which are looked up when the Animations are listed.
+   */
+  private void updateReversedAnimations() {
+    for (IAnimations animation : reversedAnimations) {
+      IAnimatedShape shape = ownerOf(animation.getChangedShape());
+      int time = animation.getTime1();
+      animation.setPosition1(calcCurrPosition(shape, time));
+      animation.setColor1(calcCurrColor(shape, time));
+      animation.setSizeParams1(calcCurrSize(shape, time));
+      animation.setRotation1(calcCurrRotation(shape, time));
     }
   }
 
   /**
-   * Adds an Animation to the timeline List at all time instances
-   * that the Animation occurs during.
+   * Adds an Animation to the timeline over the interval of ticks that the
+   * Animation occurs during, and to the keyframes of its shape. The beginning
+   * values of the shape's animations that depend on it are updated there, so the
+   * whole timeline does not have to be gone over again. An Animation that ends
+   * before it begins is only kept aside, so its beginning values can be updated
+   * when it is listed.
    *
    * @param obj Animation to add
    */
   private void addNewAnimToTimeline(IAnimations obj) {
-    for (int i = obj.getTime1(); i <= obj.getTime2(); i++) {
-      List<IAnimations> animations1 = timeline.get(i);
-      if (animations1.isEmpty()) {
-        animations1.add(obj);
-      }
-      else {
-        for (int j = 0; j < animations1.size(); j++) {
-          if (animations1.get(j).getChangedShape().equals(obj.getChangedShape())) {
-            if (animations1.get(j).getAnimateType() == AnimateTypes.STILL) {
-              animations1.remove(j);
-            }
-            animations1.add(j, obj);
-            break;
-          }
-        }
-      }
+    if (isReversed(obj)) {
+      reversedAnimations.add(obj);
+      return;
     }
+    timeline.add(obj.getTime1(), obj.getTime2(), obj);
+    keyframesOf(obj.getChangedShape()).add(obj);
   }
 
   /**
-   * This method updates all positions of animations within the timeline and
-   * animations Lists. If a move animation is added, this method will update
-   * the animations after the added one to have the correct starting position.
+   * Adds a shape to the List of shapes and adds its APPEAR and DISAPPEAR animations
+   * into the timeline. The ticks the shape is visible for are kept as a single
+   * lifetime interval, so no animation is stored for the ticks where the shape
+   * stays still. The shape is also indexed by its name and given its place in the
+   * drawing order of shapes within the same layer.
+   *
+   * @param shape   shape to be added
    */
-  private void updateBeginAnimaPositions() {
-    IPosition2D currPosition;
-    IPosition2D nextPosition;
-    IAnimatedShape currShape;
-    for (int i = 0; i < shapes.size(); i++) {
-      currShape = shapes.get(i);
-      currPosition = currShape.getInitialPosition();
-      nextPosition = currPosition;
-      for (int j = 0; j < timeline.size(); j++) {
-        for (int k = 0; k < timeline.get(j).size(); k++) {
-          if (timeline.get(j).get(k).getChangedShape().getShapeName()
-                  .equals(currShape.getShapeName())) {
-            timeline.get(j).get(k).setPosition1(currPosition);
-            if (timeline.get(j).get(k).getAnimateType() == AnimateTypes.MOVE) {
-              if (timeline.get(j).get(k).getTime2() == j) {
-                nextPosition = timeline.get(j).get(k).getPosition2();
-              }
-            }
-          }
-        }
-        currPosition = nextPosition;
-      }
-      currPosition = currShape.getInitialPosition();
-      for (int j = 0; j < animations.size(); j++) {
-        if (animations.get(j).getChangedShape().getShapeName().equals(currShape.getShapeName())) {
-          animations.get(j).setPosition1(currPosition);
-          if (animations.get(j).getAnimateType() == AnimateTypes.MOVE) {
-            currPosition = animations.get(j).getPosition2();
-          }
-        }
-      }
+  private void addShapeToTimeline(IAnimatedShape shape) {
+    shapes.add(shape);
+    if (!shapesByName.containsKey(shape.getShapeName())) {
+      shapesByName.put(shape.getShapeName(), shape);
     }
+    shapeOrder.put(shape, shapeCount++);
+    drawOrder = null;
+    keyframes.put(shape, new ShapeKeyframes(shape));
+    int time1 = shape.getAppearTime();
+    int time2 = shape.getDisappearT();
+    lifetimes.add(time1, time2, shape);
+    timeline.add(time1, time1, new ShapeAppears(shape, time1));
+    timeline.add(time2, time2, new ShapeDisappears(shape, time2));
   }
 
   /**
-   * This method updates all colors of animations within the timeline and
-   * animations Lists. If a change color animation is added, this method will
-   * update the animations after the added one to have the correct starting
-   * color.
+   * Finds the animation of the given type performed on a shape that began most
+   * recently at or before the given time. The shape's keyframes of that type are
+   * sorted by beginning time, so this is a binary search.
+   *
+   * @param shape   shape being animated
+   * @param type    animation type
+   * @param time    latest beginning time
+   * @return        latest animation, or null if there is none
    */
-  private void updateBeginAnimaColors() {
-    IRGB currColor;
-    IRGB nextColor;
-    IAnimatedShape currShape;
-    for (int i = 0; i < shapes.size(); i++) {
-      currShape = shapes.get(i);
-      currColor = currShape.getInitialColor();
-      nextColor = currColor;
-      for (int j = 0; j < timeline.size(); j++) {
-        for (int k = 0; k < timeline.get(j).size(); k++) {
-          if (timeline.get(j).get(k).getChangedShape().getShapeName()
-                  .equals(currShape.getShapeName())) {
-            timeline.get(j).get(k).setColor1(currColor);
-            if (timeline.get(j).get(k).getAnimateType() == AnimateTypes.CHANGECOLOR) {
-              if (timeline.get(j).get(k).getTime2() == j) {
-                nextColor = timeline.get(j).get(k).getColor2();
-              }
-            }
-          }
-        }
-        currColor = nextColor;
-      }
-      currColor = currShape.getInitialColor();
-      for (int j = 0; j < animations.size(); j++) {
-        if (animations.get(j).getChangedShape().getShapeName().equals(currShape.getShapeName())) {
-          animations.get(j).setColor1(currColor);
-          if (animations.get(j).getAnimateType() == AnimateTypes.CHANGECOLOR) {
-            currColor = animations.get(j).getColor2();
-          }
-        }
-      }
+  private IAnimations latestAnimation(IAnimatedShape shape, AnimateTypes type, int time) {
+    ShapeKeyframes shapeKeyframes = keyframesOf(shape);
+    if (shapeKeyframes == null) {
+      return null;
     }
+    return shapeKeyframes.latest(type, time);
   }
 
   /**
-   * This method updates all sizes of animations within the timeline and
-   * animations Lists. If a change size animation is added, this method will
-   * update the animations after the added one to have the correct starting size.
+   * Creates the STILL animation of a shape at a tick where it has no animation. The
+   * STILL animation holds the values the shape was left with by its earlier
+   * animations.
+   *
+   * @param shape   shape that is still
+   * @param tick    tick the shape is still at
+   * @return        STILL animation
    */
-  private void updateBeginAnimaSizes() {
-    List<Double> currSize;
-    List<Double> nextSize;
-    IAnimatedShape currShape;
-    for (int i = 0; i < shapes.size(); i++) {
-      currShape = shapes.get(i);
-      currSize = currShape.getInitialSize();
-      nextSize = currSize;
-      for (int j = 0; j < timeline.size(); j++) {
-        for (int k = 0; k < timeline.get(j).size(); k++) {
-          if (timeline.get(j).get(k).getChangedShape().getShapeName()
-                  .equals(currShape.getShapeName())) {
-            timeline.get(j).get(k).setSizeParams1(currSize);
-            if (timeline.get(j).get(k).getAnimateType() == AnimateTypes.CHANGESIZE) {
-              if (timeline.get(j).get(k).getTime2() == j) {
-                nextSize = timeline.get(j).get(k).getSizeParams2();
-              }
-            }
-          }
-        }
-        currSize = nextSize;
-      }
-      currSize = currShape.getInitialSize();
-      for (int j = 0; j < animations.size(); j++) {
-        if (animations.get(j).getChangedShape().getShapeName().equals(currShape.getShapeName())) {
-          animations.get(j).setSizeParams1(currSize);
-          if (animations.get(j).getAnimateType() == AnimateTypes.CHANGESIZE) {
-            currSize = animations.get(j).getSizeParams2();
-          }
+  private IAnimations stillAt(IAnimatedShape shape, int tick) {
+    IAnimations still = new StillShape(shape, tick);
+    still.setPosition1(calcCurrPosition(shape, tick));
+    still.setColor1(calcCurrColor(shape, tick));
+    still.setSizeParams1(calcCurrSize(shape, tick));
+    still.setRotation1(calcCurrRotation(shape, tick));
+    return still;
+  }
+
+  /**
+   * Gets the animations occurring at the given tick grouped by shape. Shapes are
+   * ordered from the bottom-most layer up, and by the order they were added within
+   * a layer. A visible shape that has no animation at the tick is given a STILL
+   * animation, which is created when the tick is looked up rather than stored.
+   *
+   * @param tick  tick of the animations
+   * @return      animations at the tick
+   */
+  private List<IAnimations> animationsAtTick(int tick) {
+    Map<IAnimatedShape, List<IAnimations>> groups = new IdentityHashMap<>();
+    for (IAnimations animation : timeline.getActiveAt(tick)) {
+      IAnimatedShape owner = ownerOf(animation.getChangedShape());
+      if (!groups.containsKey(owner)) {
+        groups.put(owner, new ArrayList<>());
+      }
+      groups.get(owner).add(animation);
+    }
+
+    List<IAnimatedShape> visibleShapes = lifetimes.getActiveAt(tick);
+    Collections.sort(visibleShapes, new Comparator<IAnimatedShape>() {
+      @Override
+      public int compare(IAnimatedShape s1, IAnimatedShape s2) {
+        if (s1.getLayer().getOrder() != s2.getLayer().getOrder()) {
+          return Integer.compare(s1.getLayer().getOrder(), s2.getLayer().getOrder());
         }
+        return Integer.compare(drawOrder(s1), drawOrder(s2));
+      }
+    });
+
+    List<IAnimations> animationsAtT = new ArrayList<>();
+    for (IAnimatedShape shape : visibleShapes) {
+      List<IAnimations> group = groups.get(shape);
+      if (group == null) {
+        animationsAtT.add(stillAt(shape, tick));
+      }
+      else {
+        animationsAtT.addAll(group);
       }
     }
+    return animationsAtT;
   }
 
   /**
-   * This method updates all rotations of animations within the timeline and
-   * animations Lists. If a rotate animation is added, this method will
-   * update the animations after the added one to have the correct starting rotation.
+   * Gets the shape in this model that an animation of the given shape belongs to.
+   * Each shape has keyframes of its own, so shapes with the same name are animated
+   * separately. An animation copied from another model belongs to the first shape
+   * in this model with its shape's name, as it would be if it was added by name.
+   *
+   * @param shape   shape being animated
+   * @return        shape in this model, or null if there is none
    */
-  private void updateBeginAnimaRotations() {
-    Integer currRotation;
-    Integer nextRotation;
-    IAnimatedShape currShape;
-    for (int i = 0; i < shapes.size(); i++) {
-      currShape = shapes.get(i);
-      currRotation = currShape.getInitialRotation();
-      nextRotation = currRotation;
-      for (int j = 0; j < timeline.size(); j++) {
-        for (int k = 0; k < timeline.get(j).size(); k++) {
-          if (timeline.get(j).get(k).getChangedShape().getShapeName()
-                  .equals(currShape.getShapeName())) {
-            this.timeline.get(j).get(k).setRotation1(currRotation);
-            if (timeline.get(j).get(k).getAnimateType() == AnimateTypes.ROTATE) {
-              if (timeline.get(j).get(k).getTime2() == j) {
-                nextRotation = timeline.get(j).get(k).getRotation2();
-              }
-            }
-          }
-        }
-        currRotation = nextRotation;
-      }
-      currRotation = currShape.getInitialRotation();
-      for (int j = 0; j < animations.size(); j++) {
-        if (animations.get(j).getChangedShape().getShapeName().equals(currShape.getShapeName())) {
-          animations.get(j).setRotation1(currRotation);
-          if (animations.get(j).getAnimateType() == AnimateTypes.ROTATE) {
-            currRotation = animations.get(j).getRotation2();
-          }
-        }
-      }
+  private IAnimatedShape ownerOf(IAnimatedShape shape) {
+    if (keyframes.containsKey(shape)) {
+      return shape;
     }
+    return shapesByName.get(shape.getShapeName());
   }
 
   /**
-   * This method is only used by the create shape methods. It adds the shape's
-   * APPEAR, DISAPPEAR, and STILL animations based on the shape's layer. So that
-   * the shapes in the bottom-most layer would be first in the timeline List.
+   * Gets the keyframes that an animation of the given shape is added to.
    *
-   * @param a       animation to be added
-   * @param time    tick when the animation occurs
-   */
-  private void addInitialShapeAnims(IAnimations a, int time) {
-    if (timeline.get(time).isEmpty()) {
-      timeline.get(time).add(a);
-    }
-    else {
-      for (int i = 0; i < timeline.get(time).size(); i++) {
-        if (timeline.get(time).get(i).getChangedShape().getLayer().getOrder()
-                > a.getChangedShape().getLayer().getOrder()) {
-          timeline.get(time).add(i, a);
-          break;
-        }
-        else if (i == (timeline.get(time).size() - 1)) {
-          timeline.get(time).add(a);
-          break;
-        }
+   * @param shape   shape being animated
+   * @return        keyframes of the shape, or null if it is not in this model
+   */
+  private ShapeKeyframes keyframesOf(IAnimatedShape shape) {
+    IAnimatedShape owner = ownerOf(shape);
+    return (owner == null) ? null : keyframes.get(owner);
+  }
+
+  /**
+   * Gets the order a shape was added to the model in.
+   * @param shape   shape
+   * @return        order the shape was added in
+   */
+  private int drawOrder(IAnimatedShape shape) {
+    Integer order = shapeOrder.get(shape);
+    if (order == null) {
+      return Integer.MAX_VALUE;
+    }
+    return order;
+  }
+
+  /**
+   * A read-only view of the timeline as a List of ticks. Each tick holds the
+   * animations occurring at that tick, which are looked up in the timeline when
+   * the tick is accessed.
+   */
+  private final class TickListView extends AbstractList<List<IAnimations>> {
+    @Override
+    public List<IAnimations> get(int tick) {
+      if ((tick < 0) || (tick >= size())) {
+        throw new IndexOutOfBoundsException("Tick " + tick + " is not in the timeline");
       }
+      return animationsAtTick(tick);
+    }
+
+    @Override
+    public int size() {
+      return timeline.getLastTick() + 1;
     }
   }
 
+  /**
+   * Builder that makes the commands read from an animation file on a model. In bulk
+   * mode, an invalid command does not stop the build. The invalid commands are
+   * collected and reported together when build is called. A SimpleAnimation's
+   * animations are also only checked for overlaps as they are added, and are sorted
+   * into its shapes' keyframes once, in build.
+   */
   public static final class Builder implements TweenModelBuilder<SimpleAnimationModel> {
-    private SimpleAnimationModel model = new SimpleAnimation();
+    private final SimpleAnimationModel model;
+    private final boolean bulk;
+    private final List<String> invalidCommands;
+
+    /**
+     * Constructor for a builder that builds a SimpleAnimation.
+     */
+    public Builder() {
+      this(new SimpleAnimation());
+    }
+
+    /**
+     * Constructor for a builder that builds the given model, such as a
+     * ColumnarAnimation.
+     * @param model   empty model to build
+     */
+    public Builder(SimpleAnimationModel model) {
+      this(model, false);
+    }
+
+    /**
+     * Constructor for a builder that builds the given model, in bulk mode if
+     * specified.
+     * @param model   empty model to build
+     * @param bulk    true, to defer validation until the model is built
+     */
+    public Builder(SimpleAnimationModel model, boolean bulk) {
+      this.model = model;
+      this.bulk = bulk;
+      this.invalidCommands = new ArrayList<>();
+    }
 
     @Override
     public TweenModelBuilder<SimpleAnimationModel> addOval(String name, float cx, float cy,
@@ -826,8 +1031,12 @@ public class SimpleAnimation implements SimpleAnimationModel {
       List<Double> params = new ArrayList<Double>();
       params.add((double) xRadius);
       params.add((double) yRadius);
-      this.model.createShape(name, ShapeType.OVAL, new RGB(red, green, blue),
-              new Position2D(cx, cy), params, startOfLife, endOfLife);
+      try {
+        this.model.createShape(name, ShapeType.OVAL, new RGB(red, green, blue),
+                new Position2D(cx, cy), params, startOfLife, endOfLife);
+      } catch (IllegalArgumentException e) {
+        invalidCommand(e, "oval " + name);
+      }
       // ADD THE APPEAR AND DISAPPEAR TIMES HERE.
       return this;
     }
@@ -841,8 +1050,12 @@ public class SimpleAnimation implements SimpleAnimationModel {
       List<Double> params = new ArrayList<>();
       params.add((double) xRadius);
       params.add((double) yRadius);
-      this.model.createShape(name, ShapeType.OVAL, new RGB(red, green, blue),
-              new Position2D(cx, cy), params, startOfLife, endOfLife, layer);
+      try {
+        this.model.createShape(name, ShapeType.OVAL, new RGB(red, green, blue),
+                new Position2D(cx, cy), params, startOfLife, endOfLife, layer);
+      } catch (IllegalArgumentException e) {
+        invalidCommand(e, "oval " + name);
+      }
       return this;
     }
 
@@ -855,8 +1068,12 @@ public class SimpleAnimation implements SimpleAnimationModel {
       List<Double> params = new ArrayList<Double>();
       params.add((double) width);
       params.add((double) height);
-      this.model.createShape(name, ShapeType.RECTANGLE, new RGB(red, green, blue),
-              new Position2D(lx, ly), params, startOfLife, endOfLife);
+      try {
+        this.model.createShape(name, ShapeType.RECTANGLE, new RGB(red, green, blue),
+                new Position2D(lx, ly), params, startOfLife, endOfLife);
+      } catch (IllegalArgumentException e) {
+        invalidCommand(e, "rectangle " + name);
+      }
       return this;
     }
 
@@ -869,8 +1086,12 @@ public class SimpleAnimation implements SimpleAnimationModel {
       List<Double> params = new ArrayList<Double>();
       params.add((double) width);
       params.add((double) height);
-      this.model.createShape(name, ShapeType.RECTANGLE, new RGB(red, green, blue),
-              new Position2D(lx, ly), params, startOfLife, endOfLife, layer);
+      try {
+        this.model.createShape(name, ShapeType.RECTANGLE, new RGB(red, green, blue),
+                new Position2D(lx, ly), params, startOfLife, endOfLife, layer);
+      } catch (IllegalArgumentException e) {
+        invalidCommand(e, "rectangle " + name);
+      }
       return this;
     }
 
@@ -879,10 +1100,22 @@ public class SimpleAnimation implements SimpleAnimationModel {
                                                            float moveFromY, float moveToX,
                                                            float moveToY, int startTime,
                                                            int endTime) {
-      IAnimatedShape shapeToChange;
-      if (shapeToChange(name) != null) {
-        shapeToChange = shapeToChange(name);
-        this.model.moveShape(shapeToChange, new Position2D(moveToX, moveToY), startTime, endTime);
+      IAnimatedShape shapeToChange = shapeToChange(name);
+      if (shapeToChange != null) {
+        try {
+          if (deferring()) {
+            ((SimpleAnimation) this.model).deferAnimation(new MoveShape(shapeToChange,
+                    shapeToChange.getInitialPosition(), new Position2D(moveToX, moveToY),
+                    startTime, endTime), "Invalid move");
+          } else {
+            this.model.moveShape(shapeToChange, new Position2D(moveToX, moveToY), startTime,
+                    endTime);
+          }
+        } catch (IllegalArgumentException e) {
+          invalidCommand(e, "move " + name + " from " + startTime + " to " + endTime);
+        }
+      } else {
+        unknownShape(name, "move " + name + " from " + startTime + " to " + endTime);
       }
 
       return this;
@@ -894,10 +1127,22 @@ public class SimpleAnimation implements SimpleAnimationModel {
                                                                   float newR, float newG,
                                                                   float newB, int startTime,
                                                                   int endTime) {
-      IAnimatedShape shapeToChange;
-      if (shapeToChange(name) != null) {
-        shapeToChange = shapeToChange(name);
-        this.model.changeShapeColor(shapeToChange, new RGB(newR, newG, newB), startTime, endTime);
+      IAnimatedShape shapeToChange = shapeToChange(name);
+      if (shapeToChange != null) {
+        try {
+          if (deferring()) {
+            ((SimpleAnimation) this.model).deferAnimation(new ChangeShapeColor(shapeToChange,
+                    shapeToChange.getInitialColor(), new RGB(newR, newG, newB), startTime,
+                    endTime), "Invalid color change");
+          } else {
+            this.model.changeShapeColor(shapeToChange, new RGB(newR, newG, newB), startTime,
+                    endTime);
+          }
+        } catch (IllegalArgumentException e) {
+          invalidCommand(e, "change-color " + name + " from " + startTime + " to " + endTime);
+        }
+      } else {
+        unknownShape(name, "change-color " + name + " from " + startTime + " to " + endTime);
       }
 
       return this;
@@ -908,13 +1153,24 @@ public class SimpleAnimation implements SimpleAnimationModel {
                                                                     float fromSy, float toSx,
                                                                     float toSy, int startTime,
                                                                     int endTime) {
-      IAnimatedShape shapeToChange;
-      if (shapeToChange(name) != null) {
-        shapeToChange = shapeToChange(name);
+      IAnimatedShape shapeToChange = shapeToChange(name);
+      if (shapeToChange != null) {
         List<Double> newParams = new ArrayList<Double>();
         newParams.add((double) toSx);
         newParams.add((double) toSy);
-        this.model.changeShapeSize(shapeToChange, newParams, startTime, endTime);
+        try {
+          if (deferring()) {
+            ((SimpleAnimation) this.model).deferAnimation(new ChangeShapeSize(shapeToChange,
+                    shapeToChange.getInitialSize(), newParams, startTime, endTime),
+                    "Invalid size change");
+          } else {
+            this.model.changeShapeSize(shapeToChange, newParams, startTime, endTime);
+          }
+        } catch (IllegalArgumentException e) {
+          invalidCommand(e, "scale " + name + " from " + startTime + " to " + endTime);
+        }
+      } else {
+        unknownShape(name, "scale " + name + " from " + startTime + " to " + endTime);
       }
 
       return this;
@@ -924,34 +1180,94 @@ public class SimpleAnimation implements SimpleAnimationModel {
     public TweenModelBuilder<SimpleAnimationModel> addRotateChange(String name, int fromRot,
                                                                    int toRot, int startTime,
                                                                    int endTime) {
-      IAnimatedShape shapeToChange;
-      if (shapeToChange(name) != null) {
-        shapeToChange = shapeToChange(name);
-        this.model.rotateShape(shapeToChange, toRot, startTime, endTime);
+      IAnimatedShape shapeToChange = shapeToChange(name);
+      if (shapeToChange != null) {
+        try {
+          if (deferring()) {
+            ((SimpleAnimation) this.model).deferAnimation(new RotateShape(shapeToChange,
+                    shapeToChange.getInitialRotation(), toRot, startTime, endTime),
+                    "Invalid rotation");
+          } else {
+            this.model.rotateShape(shapeToChange, toRot, startTime, endTime);
+          }
+        } catch (IllegalArgumentException e) {
+          invalidCommand(e, "rotate " + name + " from " + startTime + " to " + endTime);
+        }
+      } else {
+        unknownShape(name, "rotate " + name + " from " + startTime + " to " + endTime);
       }
       return this;
     }
 
     @Override
     public TweenModelBuilder<SimpleAnimationModel> addLayer(String name, int order) {
-      this.model.addLayer(name, order);
+      try {
+        this.model.addLayer(name, order);
+      } catch (IllegalArgumentException e) {
+        invalidCommand(e, "layer " + name);
+      }
       return this;
     }
 
+    /**
+     * Builds the model. In bulk mode, the deferred animations are added to the
+     * keyframes of their shapes first.
+     * @return  model
+     * @throws IllegalArgumentException if bulk mode found invalid commands, listing
+     *                                  all of them
+     */
     @Override
     public SimpleAnimationModel build() {
+      if (deferring()) {
+        ((SimpleAnimation) this.model).addDeferredAnimations();
+      }
+      if (!invalidCommands.isEmpty()) {
+        StringBuilder message = new StringBuilder(invalidCommands.size() + " invalid commands:");
+        for (String command : invalidCommands) {
+          message.append("\n").append(command);
+        }
+        throw new IllegalArgumentException(message.toString());
+      }
       return this.model;
     }
 
+    /**
+     * Reports a command on a shape that is not in the model. Outside bulk mode the
+     * command is ignored, as it always has been. In bulk mode it is reported with
+     * the other invalid commands.
+     * @param name      name of the shape
+     * @param command   command on the shape
+     */
+    private void unknownShape(String name, String command) {
+      if (bulk) {
+        invalidCommands.add("No shape named " + name + ": " + command);
+      }
+    }
+
     private IAnimatedShape shapeToChange(String name) {
-      IAnimatedShape shape;
-      for (int i = 0; i < this.model.getShapes().size(); i++) {
-        if (this.model.getShapes().get(i).getShapeName().equals(name)) {
-          shape = this.model.getShapes().get(i);
-          return shape;
-        }
+      return this.model.getShapeByName(name);
+    }
+
+    /**
+     * Checks if animations are deferred until build, which is only done for a
+     * SimpleAnimation in bulk mode. Other models are still built command by command.
+     * @return  true, if animations are deferred
+     */
+    private boolean deferring() {
+      return bulk && (this.model instanceof SimpleAnimation);
+    }
+
+    /**
+     * Handles a command that could not be made on the model. In bulk mode it is
+     * collected, otherwise the exception is rethrown.
+     * @param e         exception thrown by the command
+     * @param command   description of the command
+     */
+    private void invalidCommand(IllegalArgumentException e, String command) {
+      if (!bulk) {
+        throw e;
       }
-      return null;
+      invalidCommands.add(e.getMessage() + ": " + command);
     }
   }
 }
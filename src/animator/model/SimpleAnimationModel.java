@@ -103,6 +103,60 @@ public interface SimpleAnimationModel {
    */
   List<List<IAnimations>> getTimeline();
 
+  /**
+   * Gets the number of entries in the timeline: the appearance and disappearance of
+   * every shape, and every animation.
+   * @return  number of timeline entries
+   */
+  int getTimelineSize();
+
+  /**
+   * Gets the animations occurring at the given tick.
+   * @param tick    tick of the animations
+   * @return        animations at the tick
+   */
+  List<IAnimations> getAnimationsAt(int tick);
+
+  /**
+   * Gets the animations occurring during the given range of ticks.
+   * @param from    first tick of the range
+   * @param to      last tick of the range
+   * @return        animations overlapping the range
+   */
+  List<IAnimations> getAnimationsBetween(int from, int to);
+
+  /**
+   * Gets the animations of the given type performed on a shape, sorted by
+   * beginning time. The List cannot be modified.
+   * @param shape   shape being animated
+   * @param type    animation type
+   * @return        shape's keyframes of the type
+   */
+  List<IAnimations> getKeyframes(IAnimatedShape shape, AnimateTypes type);
+
+  /**
+   * Fills a frame with the type, position, size, color, rotation, and layer of every
+   * shape visible at the given tick, interpolated between the beginning and final
+   * values of the animations occurring at that tick. Shapes are in the order they are
+   * drawn in. The frame is reused, so evaluating every tick of an animation into the
+   * same frame does not allocate.
+   * @param tick    tick to evaluate
+   * @param reuse   frame to fill, or null to create a new one
+   * @return        filled frame
+   */
+  FrameState evaluate(int tick, FrameState reuse);
+
+  /**
+   * Fills a frame the same way as evaluate, at a time that can be partway between two
+   * ticks. The shapes visible at the tick before the time are in the frame, and the
+   * animations occurring at that tick are interpolated to the exact time, so drawing
+   * frames more often than ticks gives smooth motion.
+   * @param time    time to evaluate, in ticks
+   * @param reuse   frame to fill, or null to create a new one
+   * @return        filled frame
+   */
+  FrameState evaluateAt(double time, FrameState reuse);
+
   /**
    * Moves a specified shape to a different position at the specified
    * point in time.
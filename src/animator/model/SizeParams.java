@@ -0,0 +1,57 @@
+package animator.model;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * This class represents a shape's size parameters. The parameters are stored in a
+ * double array so they can be read without boxing, and the class is also a read-only
+ * List of Doubles so it can be used wherever size parameters are passed as a List.
+ */
+public final class SizeParams extends AbstractList<Double> {
+  private final double[] values;
+
+  /**
+   * Constructor for SizeParams holding the given parameters.
+   * @param values  size parameters
+   */
+  public SizeParams(double... values) {
+    this.values = values.clone();
+  }
+
+  /**
+   * Gets the given size parameters as SizeParams. If they already are, the same
+   * object is returned, otherwise they are copied.
+   * @param size    size parameters
+   * @return        size parameters as SizeParams, or null if size is null
+   */
+  public static SizeParams of(List<Double> size) {
+    if ((size == null) || (size instanceof SizeParams)) {
+      return (SizeParams) size;
+    }
+    double[] values = new double[size.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = size.get(i);
+    }
+    return new SizeParams(values);
+  }
+
+  /**
+   * Gets a size parameter without boxing it.
+   * @param index   index of parameter
+   * @return        size parameter
+   */
+  public double valueAt(int index) {
+    return values[index];
+  }
+
+  @Override
+  public Double get(int index) {
+    return values[index];
+  }
+
+  @Override
+  public int size() {
+    return values.length;
+  }
+}
@@ -3,7 +3,10 @@ package animator.model;
 import animator.model.enums.AnimateTypes;
 
 /**
- * Represents a shape that does not have any movements at the moment.
+ * Represents a shape that does not have any movements at the moment. Still shapes
+ * are not stored in the model; one is created when a tick of the timeline is looked
+ * up and a visible shape has no animation at that tick. The shape keeps the values
+ * left by its earlier animations, which are found with the model's calcCurr methods.
  */
 public class StillShape extends Animations {
   /**
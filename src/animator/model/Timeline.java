@@ -0,0 +1,261 @@
+package animator.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents a timeline that is stored as an interval tree. Each item
+ * is held in a single node keyed by its start tick, and every node also keeps the
+ * latest end tick in its subtree. This lets the timeline find the items that occur
+ * at a tick or during a range of ticks in logarithmic time instead of storing the
+ * item again at every tick it covers. The tree is kept balanced as an AVL tree.
+ *
+ * @param <T> type of the items held in the timeline
+ */
+public class Timeline<T> implements ITimeline<T> {
+  private Node<T> root;
+  private int size;
+  private long nextSeq;
+
+  /**
+   * Constructor for an empty timeline.
+   */
+  public Timeline() {
+    root = null;
+    size = 0;
+    nextSeq = 0;
+  }
+
+  @Override
+  public void add(int start, int end, T item) {
+    if (end < start) {
+      throw new IllegalArgumentException("Interval ends before it starts");
+    }
+    root = insert(root, new Node<>(start, end, nextSeq++, item));
+    size++;
+  }
+
+  @Override
+  public boolean remove(int start, T item) {
+    Node<T> found = find(root, start, item);
+    if (found == null) {
+      return false;
+    }
+    root = delete(root, found.start, found.seq);
+    size--;
+    return true;
+  }
+
+  @Override
+  public List<T> getActiveAt(int tick) {
+    return getOverlapping(tick, tick);
+  }
+
+  @Override
+  public List<T> getOverlapping(int from, int to) {
+    List<T> items = new ArrayList<>();
+    collect(root, from, to, items);
+    return items;
+  }
+
+  @Override
+  public List<T> getAll() {
+    List<T> items = new ArrayList<>(size);
+    collect(root, Integer.MIN_VALUE, Integer.MAX_VALUE, items);
+    return items;
+  }
+
+  @Override
+  public int getLastTick() {
+    if (root == null) {
+      return -1;
+    }
+    return root.maxEnd;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Adds the items overlapping [from, to] in the given subtree to the list in
+   * order of start tick. Subtrees that end before the range or start after it
+   * are skipped.
+   * @param node    subtree root
+   * @param from    first tick of the range
+   * @param to      last tick of the range
+   * @param items   list to add to
+   */
+  private void collect(Node<T> node, int from, int to, List<T> items) {
+    if ((node == null) || (node.maxEnd < from)) {
+      return;
+    }
+    collect(node.left, from, to, items);
+    if (node.start <= to) {
+      if (node.end >= from) {
+        items.add(node.item);
+      }
+      collect(node.right, from, to, items);
+    }
+  }
+
+  /**
+   * Finds the node holding the given item that starts at the given tick.
+   * @param node    subtree root
+   * @param start   item's start tick
+   * @param item    item to find
+   * @return        node, or null if not found
+   */
+  private Node<T> find(Node<T> node, int start, T item) {
+    if (node == null) {
+      return null;
+    }
+    if (start < node.start) {
+      return find(node.left, start, item);
+    }
+    if (start > node.start) {
+      return find(node.right, start, item);
+    }
+    if (node.item == item) {
+      return node;
+    }
+    Node<T> found = find(node.left, start, item);
+    if (found == null) {
+      found = find(node.right, start, item);
+    }
+    return found;
+  }
+
+  private Node<T> insert(Node<T> node, Node<T> newNode) {
+    if (node == null) {
+      return newNode;
+    }
+    if (compare(newNode.start, newNode.seq, node) < 0) {
+      node.left = insert(node.left, newNode);
+    }
+    else {
+      node.right = insert(node.right, newNode);
+    }
+    return rebalance(node);
+  }
+
+  private Node<T> delete(Node<T> node, int start, long seq) {
+    if (node == null) {
+      return null;
+    }
+    int cmp = compare(start, seq, node);
+    if (cmp < 0) {
+      node.left = delete(node.left, start, seq);
+    }
+    else if (cmp > 0) {
+      node.right = delete(node.right, start, seq);
+    }
+    else {
+      if (node.left == null) {
+        return node.right;
+      }
+      if (node.right == null) {
+        return node.left;
+      }
+      Node<T> successor = node.right;
+      while (successor.left != null) {
+        successor = successor.left;
+      }
+      successor.right = delete(node.right, successor.start, successor.seq);
+      successor.left = node.left;
+      node = successor;
+    }
+    return rebalance(node);
+  }
+
+  private int compare(int start, long seq, Node<T> node) {
+    if (start != node.start) {
+      return Integer.compare(start, node.start);
+    }
+    return Long.compare(seq, node.seq);
+  }
+
+  private Node<T> rebalance(Node<T> node) {
+    update(node);
+    int balance = height(node.left) - height(node.right);
+    if (balance > 1) {
+      if (height(node.left.left) < height(node.left.right)) {
+        node.left = rotateLeft(node.left);
+      }
+      return rotateRight(node);
+    }
+    if (balance < -1) {
+      if (height(node.right.right) < height(node.right.left)) {
+        node.right = rotateRight(node.right);
+      }
+      return rotateLeft(node);
+    }
+    return node;
+  }
+
+  private Node<T> rotateLeft(Node<T> node) {
+    Node<T> newRoot = node.right;
+    node.right = newRoot.left;
+    newRoot.left = node;
+    update(node);
+    update(newRoot);
+    return newRoot;
+  }
+
+  private Node<T> rotateRight(Node<T> node) {
+    Node<T> newRoot = node.left;
+    node.left = newRoot.right;
+    newRoot.right = node;
+    update(node);
+    update(newRoot);
+    return newRoot;
+  }
+
+  /**
+   * Recalculates a node's height and the latest end tick of its subtree.
+   * @param node  node to update
+   */
+  private void update(Node<T> node) {
+    node.height = 1 + Math.max(height(node.left), height(node.right));
+    node.maxEnd = node.end;
+    if ((node.left != null) && (node.left.maxEnd > node.maxEnd)) {
+      node.maxEnd = node.left.maxEnd;
+    }
+    if ((node.right != null) && (node.right.maxEnd > node.maxEnd)) {
+      node.maxEnd = node.right.maxEnd;
+    }
+  }
+
+  private int height(Node<T> node) {
+    if (node == null) {
+      return 0;
+    }
+    return node.height;
+  }
+
+  /**
+   * A node of the interval tree. Nodes are ordered by start tick and then by
+   * insertion order, so items starting at the same tick keep the order they were
+   * added in.
+   */
+  private static final class Node<T> {
+    private final int start;
+    private final int end;
+    private final long seq;
+    private final T item;
+    private int maxEnd;
+    private int height;
+    private Node<T> left;
+    private Node<T> right;
+
+    private Node(int start, int end, long seq, T item) {
+      this.start = start;
+      this.end = end;
+      this.seq = seq;
+      this.item = item;
+      this.maxEnd = end;
+      this.height = 1;
+    }
+  }
+}
@@ -1,11 +1,28 @@
 package animator.util;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.InputMismatchException;
-import java.util.Map;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 /**
  * This class represents a file reader for the animation file. This reads in the
@@ -15,9 +32,15 @@ import java.util.Scanner;
  */
 
 public class AnimationFileReader {
+  private static final int MIN_CHUNK_SIZE = 1 << 18;
+  private static final int STREAM_BUFFER_SIZE = 1 << 16;
 
   /**
-   * Read the animation file and use the builder to build a model.
+   * Read the animation file and use the builder to build a model. Files in the
+   * binary format written by BinaryAnimationWriter are recognized by their magic
+   * number and read with BinaryAnimationReader. Files compressed with gzip or zip
+   * are also recognized by their magic number, whatever their extension, and are
+   * decompressed as they are read.
    *
    * @param fileName the path of the file to be read
    * @param builder  the builder used to build the model
@@ -30,16 +53,405 @@ public class AnimationFileReader {
    */
   public <T> T readFile(String fileName, TweenModelBuilder<T> builder) throws
           FileNotFoundException, IllegalStateException, InputMismatchException {
-    Scanner sc;
+    ByteBuffer file = mapFile(fileName);
+    if (isCompressed(file)) {
+      return readCompressedFile(fileName, file, builder);
+    }
+    if (BinaryAnimationReader.isBinaryAnimation(file)) {
+      return new BinaryAnimationReader().read(file, builder);
+    }
+    readCommands(new AnimationTokenizer(file), builder, Integer.MAX_VALUE);
+    return builder.build();
+  }
+
+  /**
+   * Read only the commands for the given shapes, and the commands that add layers,
+   * from the animation file and use the builder to build a model. The commands are
+   * found with an index of the file, which is saved next to it the first time this
+   * is used and built again whenever the file changes. The commands are made in the
+   * order they appear in the file, so the model is the one readFile would build if
+   * the other shapes were not in the file.
+   *
+   * @param fileName   the path of the file to be read
+   * @param shapeNames the names of the shapes to read
+   * @param builder    the builder used to build the model
+   * @param <T>        the type of model
+   * @return the model
+   * @throws FileNotFoundException    if the specified file cannot be read
+   * @throws InputMismatchException   if some data value is not of the expected
+   *                                  type
+   * @throws IllegalStateException    if an illegal token is read from the file, or
+   *                                  the file is compressed or binary
+   * @throws IllegalArgumentException if the file has no shape with one of the names
+   */
+  public <T> T readShapes(String fileName, Collection<String> shapeNames,
+                          TweenModelBuilder<T> builder) throws FileNotFoundException,
+          IllegalStateException, InputMismatchException {
+    ByteBuffer file = mapFile(fileName);
+    if (isCompressed(file) || BinaryAnimationReader.isBinaryAnimation(file)) {
+      throw new IllegalStateException("Only text animation files can be read by shape");
+    }
+    ShapeIndex index = ShapeIndex.read(fileName);
+    if (index == null) {
+      AnimationTokenizer positions = new AnimationTokenizer(file.duplicate());
+      index = new ShapeIndex(positions);
+      readCommands(positions, index, Integer.MAX_VALUE);
+      index.write(fileName);
+    }
+
+    int[] ranges = index.ranges(shapeNames);
+    AnimationTokenizer sc = new AnimationTokenizer(file);
+    for (int i = 0; i < ranges.length; i += 2) {
+      sc.seek(ranges[i]);
+      readCommands(sc, builder, ranges[i + 1]);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Read several animation files using all the threads of the common ForkJoinPool,
+   * and use the builder to build one model holding all of them. This is the same as
+   * readFiles with the given pool.
+   *
+   * @param fileNames  the paths of the files to be read
+   * @param namespaces the namespace of each file
+   * @param builder    the builder used to build the model
+   * @param <T>        the type of model
+   * @return the model
+   * @throws FileNotFoundException    if one of the files cannot be read
+   * @throws InputMismatchException   if some data value is not of the expected
+   *                                  type
+   * @throws IllegalStateException    if an illegal token is read from a file
+   * @throws IllegalArgumentException if the namespaces are not one distinct name for
+   *                                  each file
+   */
+  public <T> T readFiles(List<String> fileNames, List<String> namespaces,
+                         TweenModelBuilder<T> builder) throws FileNotFoundException,
+          IllegalStateException, InputMismatchException {
+    return readFiles(fileNames, namespaces, builder, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Read several animation files in parallel on the given pool, and use the builder
+   * to build one model holding all of them. Each file is read on its own task, and
+   * the commands read are then made on the builder one file after another, in the
+   * order the files are given. Each file's shape and layer names are put in its
+   * namespace, as "namespace/name", so files can use the same names. The layers of
+   * each file keep their order among themselves, and are all drawn above the
+   * layers of the files before it, so the first file is the bottom of the scene.
+   *
+   * @param fileNames  the paths of the files to be read
+   * @param namespaces the namespace of each file
+   * @param builder    the builder used to build the model
+   * @param pool       the pool to read the files on
+   * @param <T>        the type of model
+   * @return the model
+   * @throws FileNotFoundException    if one of the files cannot be read
+   * @throws InputMismatchException   if some data value is not of the expected
+   *                                  type
+   * @throws IllegalStateException    if an illegal token is read from a file
+   * @throws IllegalArgumentException if the namespaces are not one distinct name for
+   *                                  each file
+   */
+  public <T> T readFiles(List<String> fileNames, List<String> namespaces,
+                         TweenModelBuilder<T> builder, ForkJoinPool pool) throws
+          FileNotFoundException, IllegalStateException, InputMismatchException {
+    if (fileNames.size() != namespaces.size()) {
+      throw new IllegalArgumentException("Each file needs one namespace");
+    }
+    for (int i = 0; i < namespaces.size(); i++) {
+      String namespace = namespaces.get(i);
+      if (namespace.isEmpty() || (namespace.indexOf('/') >= 0)
+              || (namespaces.indexOf(namespace) != i)) {
+        throw new IllegalArgumentException("Invalid namespace " + namespace);
+      }
+    }
+
+    List<ForkJoinTask<CommandRecorder>> files = new ArrayList<>();
+    for (String fileName : fileNames) {
+      final String name = fileName;
+      final ByteBuffer file = mapFile(fileName);
+      files.add(pool.submit(new Callable<CommandRecorder>() {
+        @Override
+        public CommandRecorder call() {
+          return recordFile(name, file);
+        }
+      }));
+    }
+
+    int nextLayerOrder = 0;
+    boolean firstLayers = true;
+    for (int i = 0; i < files.size(); i++) {
+      CommandRecorder commands = files.get(i).join();
+      int layerOffset = 0;
+      if (commands.hasLayerOrders()) {
+        if (!firstLayers) {
+          layerOffset = nextLayerOrder - commands.getLowestLayerOrder();
+        }
+        nextLayerOrder = commands.getHighestLayerOrder() + layerOffset + 1;
+        firstLayers = false;
+      }
+      NamespacedBuilder<T> namespaced = new NamespacedBuilder<>(builder, namespaces.get(i),
+              layerOffset);
+      if (commands.usesDefaultLayer()) {
+        namespaced.addDefaultLayer();
+      }
+      commands.replay(namespaced);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Read the animation files listed in a manifest, and use the builder to build one
+   * model holding all of them, as readFiles does. Each line of the manifest names a
+   * file, relative to the manifest, optionally followed by its namespace. A file
+   * without a namespace is given the one from defaultNamespace. Blank lines and
+   * lines beginning with "#" are skipped.
+   *
+   * @param manifestName the path of the manifest
+   * @param builder      the builder used to build the model
+   * @param <T>          the type of model
+   * @return the model
+   * @throws FileNotFoundException    if the manifest or one of the files cannot be
+   *                                  read
+   * @throws InputMismatchException   if some data value is not of the expected
+   *                                  type
+   * @throws IllegalStateException    if an illegal token is read from a file
+   * @throws IllegalArgumentException if a line of the manifest is invalid
+   */
+  public <T> T readManifest(String manifestName, TweenModelBuilder<T> builder) throws
+          FileNotFoundException, IllegalStateException, InputMismatchException {
+    List<String> fileNames = new ArrayList<>();
+    List<String> namespaces = new ArrayList<>();
+    readManifestEntries(manifestName, fileNames, namespaces);
+    return readFiles(fileNames, namespaces, builder);
+  }
+
+  /**
+   * Reads the files and namespaces listed in a manifest, in the format readManifest
+   * reads, without reading the files.
+   *
+   * @param manifestName the path of the manifest
+   * @param fileNames    the list the paths of the files are added to
+   * @param namespaces   the list the namespaces of the files are added to
+   * @throws FileNotFoundException    if the manifest cannot be read
+   * @throws IllegalArgumentException if a line of the manifest is invalid
+   */
+  public static void readManifestEntries(String manifestName, List<String> fileNames,
+                                         List<String> namespaces) throws
+          FileNotFoundException {
+    File directory = new File(manifestName).getAbsoluteFile().getParentFile();
+    Scanner manifest = new Scanner(new FileInputStream(manifestName),
+            StandardCharsets.UTF_8.name());
+    try {
+      while (manifest.hasNextLine()) {
+        String line = manifest.nextLine().trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] parts = line.split("\\s+");
+        if (parts.length > 2) {
+          throw new IllegalArgumentException("Invalid manifest line: " + line);
+        }
+        File file = new File(parts[0]);
+        if (!file.isAbsolute()) {
+          file = new File(directory, parts[0]);
+        }
+        fileNames.add(file.getPath());
+        namespaces.add((parts.length == 2) ? parts[1] : defaultNamespace(parts[0]));
+      }
+    }
+    finally {
+      manifest.close();
+    }
+  }
+
+  /**
+   * Gets the namespace a file is given when none is chosen: its name, without the
+   * directory or any extension.
+   *
+   * @param fileName the path of the file
+   * @return the namespace
+   */
+  public static String defaultNamespace(String fileName) {
+    String name = new File(fileName).getName();
+    int extension = name.indexOf('.');
+    return (extension > 0) ? name.substring(0, extension) : name;
+  }
+
+  /**
+   * Read the animation file using all the threads of the common ForkJoinPool, and
+   * use the builder to build a model. The result is the same as readFile.
+   * Compressed files cannot be split, so they are read on the calling thread.
+   *
+   * @param fileName the path of the file to be read
+   * @param builder  the builder used to build the model
+   * @param <T>      the type of model
+   * @return the model
+   * @throws FileNotFoundException  if the specified file cannot be read
+   * @throws InputMismatchException if some data value is not of the expected
+   *                                type
+   * @throws IllegalStateException  if an illegal token is read from the file
+   */
+  public <T> T readFileInParallel(String fileName, TweenModelBuilder<T> builder) throws
+          FileNotFoundException, IllegalStateException, InputMismatchException {
+    return readFileInParallel(fileName, builder, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Read the animation file in parallel on the given pool, and use the builder to
+   * build a model. The file is split into chunks at line breaks, and each chunk is
+   * tokenized on its own task. The commands read are then made on the builder in
+   * the order they appear in the file, so the result is the same as readFile.
+   * A command that continues onto the lines of the next chunk is finished by the
+   * chunk it began in, and a chunk that turns out to have begun partway through a
+   * command is read again from the end of that command.
+   *
+   * @param fileName the path of the file to be read
+   * @param builder  the builder used to build the model
+   * @param pool     the pool to tokenize the chunks on
+   * @param <T>      the type of model
+   * @return the model
+   * @throws FileNotFoundException  if the specified file cannot be read
+   * @throws InputMismatchException if some data value is not of the expected
+   *                                type
+   * @throws IllegalStateException  if an illegal token is read from the file
+   */
+  public <T> T readFileInParallel(String fileName, TweenModelBuilder<T> builder,
+                                  ForkJoinPool pool) throws FileNotFoundException,
+          IllegalStateException, InputMismatchException {
+    ByteBuffer file = mapFile(fileName);
+    if (isCompressed(file)) {
+      return readCompressedFile(fileName, file, builder);
+    }
+    if (BinaryAnimationReader.isBinaryAnimation(file)) {
+      return new BinaryAnimationReader().read(file, builder);
+    }
+    int chunkSize = Math.max(MIN_CHUNK_SIZE, file.limit() / (pool.getParallelism() * 4));
+    return readChunks(file, builder, pool, chunkSize);
+  }
+
+  /**
+   * Reads a mapped file in chunks of at least the given size.
+   *
+   * @param file      the whole file
+   * @param builder   the builder used to build the model
+   * @param pool      the pool to tokenize the chunks on
+   * @param chunkSize the smallest number of bytes in a chunk
+   * @param <T>       the type of model
+   * @return the model
+   */
+  <T> T readChunks(ByteBuffer file, TweenModelBuilder<T> builder, ForkJoinPool pool,
+                   int chunkSize) {
+    List<ForkJoinTask<CommandRecorder>> chunks = new ArrayList<>();
+    List<Integer> chunkEnds = new ArrayList<>();
+    int from = 0;
+    while (from < file.limit()) {
+      int to = (int) Math.min((long) from + chunkSize, file.limit());
+      while ((to < file.limit()) && (file.get(to - 1) != '\n')) {
+        to++;
+      }
+      final int chunkFrom = from;
+      final int chunkTo = to;
+      chunks.add(pool.submit(new Callable<CommandRecorder>() {
+        @Override
+        public CommandRecorder call() {
+          return readChunk(file, chunkFrom, chunkTo);
+        }
+      }));
+      chunkEnds.add(to);
+      from = to;
+    }
+
+    int expected = new AnimationTokenizer(file.duplicate()).position();
+    for (int i = 0; i < chunks.size(); i++) {
+      CommandRecorder chunk = chunks.get(i).join();
+      if (chunk.getStart() != expected) {
+        chunk = readChunk(file, expected, chunkEnds.get(i));
+      }
+      chunk.replay(builder);
+      expected = chunk.getEnd();
+    }
+    return builder.build();
+  }
 
-    sc = new Scanner(new FileInputStream(fileName));
+  /**
+   * Reads the commands of a whole file, in any of the formats readFile reads.
+   *
+   * @param fileName the path of the file
+   * @param file     the contents of the file
+   * @return the commands read
+   */
+  private CommandRecorder recordFile(String fileName, ByteBuffer file) {
+    if (!isCompressed(file) && !BinaryAnimationReader.isBinaryAnimation(file)) {
+      return readChunk(file, 0, file.limit());
+    }
+    CommandRecorder recorder = new CommandRecorder(0);
+    try {
+      if (isCompressed(file)) {
+        readCompressedFile(fileName, file, recorder);
+      }
+      else {
+        new BinaryAnimationReader().read(file, recorder);
+      }
+    }
+    catch (FileNotFoundException e) {
+      recorder.fail(new IllegalStateException("Could not read file " + fileName, e));
+    }
+    catch (RuntimeException e) {
+      recorder.fail(e);
+    }
+    return recorder;
+  }
+
+  /**
+   * Reads the commands that begin in a part of the file.
+   *
+   * @param file the whole file
+   * @param from offset to begin reading at
+   * @param to   offset that commands must begin before
+   * @return the commands read
+   */
+  private CommandRecorder readChunk(ByteBuffer file, int from, int to) {
+    ByteBuffer bytes = file.duplicate();
+    bytes.position(from);
+    AnimationTokenizer sc = new AnimationTokenizer(bytes);
+    CommandRecorder recorder = new CommandRecorder(sc.position());
+    try {
+      readCommands(sc, recorder, to);
+      recorder.setEnd(sc.position());
+    }
+    catch (RuntimeException e) {
+      recorder.fail(e);
+    }
+    return recorder;
+  }
 
-    while (sc.hasNext()) {
+  /**
+   * Reads commands and makes them on the builder, until the end of the file or the
+   * first command that begins at or after the given offset. One record of each
+   * type is reused for all the commands of that type.
+   *
+   * @param sc      tokenizer to read from
+   * @param builder the builder used to build the model
+   * @param end     offset that commands must begin before
+   */
+  private <T> void readCommands(AnimationTokenizer sc, TweenModelBuilder<T> builder,
+                                int end) {
+    RectangleInfo rinfo = new RectangleInfo();
+    OvalInfo cinfo = new OvalInfo();
+    MoveInfo minfo = new MoveInfo();
+    ChangeColorInfo colorInfo = new ChangeColorInfo();
+    ScaleByInfo scaleByInfo = new ScaleByInfo();
+    RotateInfo rotateInfo = new RotateInfo();
+    LayerInfo layerInfo = new LayerInfo();
+
+    while (sc.hasNext() && (sc.position() < end)) {
       String command = sc.next();
       ShapeInfo shapeInfo;
       switch (command) {
         case "rectangle":
-          RectangleInfo rinfo = readRectangleInfo(sc);
+          readRectangleInfo(sc, rinfo);
           if (rinfo.getLayer() != null) {
             builder.addRectangle(
                     rinfo.getName(), rinfo.getLayer(),
@@ -58,7 +470,7 @@ public class AnimationFileReader {
           }
           break;
         case "oval":
-          OvalInfo cinfo = readOvalInfo(sc);
+          readOvalInfo(sc, cinfo);
           if (cinfo.getLayer() != null) {
             builder.addOval(
                     cinfo.getName(), cinfo.getLayer(),
@@ -77,7 +489,7 @@ public class AnimationFileReader {
           }
           break;
         case "move":
-          MoveInfo minfo = readMoveInfo(sc);
+          readMoveInfo(sc, minfo);
           builder.addMove(
                   minfo.getName(),
                   minfo.getFromX(),
@@ -88,7 +500,7 @@ public class AnimationFileReader {
                   minfo.getEnd());
           break;
         case "change-color":
-          ChangeColorInfo colorInfo = readChangeColorInfo(sc);
+          readChangeColorInfo(sc, colorInfo);
           builder.addColorChange(colorInfo.name,
                   colorInfo.getFromR(),
                   colorInfo.getFromG(),
@@ -100,7 +512,7 @@ public class AnimationFileReader {
                   colorInfo.getEnd());
           break;
         case "scale":
-          ScaleByInfo scaleByInfo = readScaleByInfo(sc);
+          readScaleByInfo(sc, scaleByInfo);
           builder.addScaleToChange(scaleByInfo.name,
                   scaleByInfo.getFromXScale(),
                   scaleByInfo.getFromYScale(),
@@ -110,7 +522,7 @@ public class AnimationFileReader {
                   scaleByInfo.getEnd());
           break;
         case "rotate":
-          RotateInfo rotateInfo = readRotateInfo(sc);
+          readRotateInfo(sc, rotateInfo);
           builder.addRotateChange(rotateInfo.name,
                   rotateInfo.getFromRot(),
                   rotateInfo.getToRot(),
@@ -118,7 +530,7 @@ public class AnimationFileReader {
                   rotateInfo.getEnd());
           break;
         case "layer":
-          LayerInfo layerInfo = readLayerInfo(sc);
+          readLayerInfo(sc, layerInfo);
           builder.addLayer(layerInfo.name,
                   layerInfo.getLayerOrder());
           break;
@@ -128,12 +540,108 @@ public class AnimationFileReader {
 
       }
     }
-    return builder.build();
   }
 
-  private RectangleInfo readRectangleInfo(Scanner sc) throws
+  /**
+   * Checks if the file begins with the magic number of a gzip or zip file.
+   *
+   * @param file the contents of the file
+   * @return true, if the file is compressed
+   */
+  static boolean isCompressed(ByteBuffer file) {
+    if ((file.limit() >= 2) && (file.get(0) == (byte) 0x1F) && (file.get(1) == (byte) 0x8B)) {
+      return true;
+    }
+    return (file.limit() >= 4) && (file.get(0) == 'P') && (file.get(1) == 'K')
+            && (file.get(2) == 3) && (file.get(3) == 4);
+  }
+
+  /**
+   * Reads a gzip file, or the first file in a zip file, decompressing it as it is
+   * tokenized so it is never held in memory or written out whole. A compressed
+   * binary animation is decompressed into memory and read with
+   * BinaryAnimationReader.
+   *
+   * @param fileName the path of the file to be read
+   * @param file     the contents of the file
+   * @param builder  the builder used to build the model
+   * @param <T>      the type of model
+   * @return the model
+   * @throws FileNotFoundException if the specified file cannot be read
+   */
+  private <T> T readCompressedFile(String fileName, ByteBuffer file,
+                                   TweenModelBuilder<T> builder) throws FileNotFoundException {
+    try (InputStream input = new FileInputStream(fileName)) {
+      InputStream decompressed;
+      if (file.get(0) == 'P') {
+        ZipInputStream zip = new ZipInputStream(new BufferedInputStream(input,
+                STREAM_BUFFER_SIZE));
+        ZipEntry entry = zip.getNextEntry();
+        while ((entry != null) && entry.isDirectory()) {
+          entry = zip.getNextEntry();
+        }
+        if (entry == null) {
+          throw new IllegalStateException("No animation file in " + fileName);
+        }
+        decompressed = zip;
+      }
+      else {
+        decompressed = new GZIPInputStream(input, STREAM_BUFFER_SIZE);
+      }
+
+      BufferedInputStream buffered = new BufferedInputStream(decompressed, STREAM_BUFFER_SIZE);
+      buffered.mark(4);
+      byte[] magic = new byte[4];
+      int read = 0;
+      int count = 0;
+      while ((count >= 0) && (read < magic.length)) {
+        count = buffered.read(magic, read, magic.length - read);
+        read += Math.max(count, 0);
+      }
+      buffered.reset();
+      if (BinaryAnimationReader.isBinaryAnimation(ByteBuffer.wrap(magic, 0, read))) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[STREAM_BUFFER_SIZE];
+        for (count = buffered.read(chunk); count >= 0; count = buffered.read(chunk)) {
+          bytes.write(chunk, 0, count);
+        }
+        return new BinaryAnimationReader().read(ByteBuffer.wrap(bytes.toByteArray()), builder);
+      }
+
+      readCommands(new AnimationTokenizer(Channels.newChannel(buffered)), builder,
+              Integer.MAX_VALUE);
+      return builder.build();
+    }
+    catch (FileNotFoundException e) {
+      throw e;
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Could not read file " + fileName, e);
+    }
+  }
+
+  /**
+   * Maps the whole file into memory so it can be tokenized without copying it.
+   *
+   * @param fileName the path of the file to be read
+   * @return the contents of the file
+   * @throws FileNotFoundException if the specified file cannot be read
+   */
+  private MappedByteBuffer mapFile(String fileName) throws FileNotFoundException {
+    try (FileChannel channel = new FileInputStream(fileName).getChannel()) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    catch (FileNotFoundException e) {
+      throw e;
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Could not read file " + fileName, e);
+    }
+  }
+
+  private void readRectangleInfo(AnimationTokenizer sc, RectangleInfo info) throws
           IllegalStateException, InputMismatchException {
-    RectangleInfo info = new RectangleInfo();
+    info.reset();
 
     while (!info.isAllInitialized()) {
       String command = sc.next();
@@ -156,10 +664,10 @@ public class AnimationFileReader {
           info.setB(sc.nextFloat());
           break;
         case "name":
-          info.setName(sc.next());
+          info.setName(sc.nextName());
           break;
         case "layer":
-          info.setLayer(sc.next());
+          info.setLayer(sc.nextName());
           break;
         case "from":
           info.setStart(sc.nextInt());
@@ -172,13 +680,11 @@ public class AnimationFileReader {
                   + "rectangle");
       }
     }
-
-    return info;
   }
 
-  private OvalInfo readOvalInfo(Scanner sc) throws
+  private void readOvalInfo(AnimationTokenizer sc, OvalInfo info) throws
           IllegalStateException, InputMismatchException {
-    OvalInfo info = new OvalInfo();
+    info.reset();
 
     while (!info.isAllInitialized()) {
       String command = sc.next();
@@ -201,10 +707,10 @@ public class AnimationFileReader {
           info.setB(sc.nextFloat());
           break;
         case "name":
-          info.setName(sc.next());
+          info.setName(sc.nextName());
           break;
         case "layer":
-          info.setLayer(sc.next());
+          info.setLayer(sc.nextName());
           break;
         case "from":
           info.setStart(sc.nextInt());
@@ -217,13 +723,11 @@ public class AnimationFileReader {
                   + "oval");
       }
     }
-
-    return info;
   }
 
-  private MoveInfo readMoveInfo(Scanner sc) throws
+  private void readMoveInfo(AnimationTokenizer sc, MoveInfo info) throws
           IllegalStateException, InputMismatchException {
-    MoveInfo info = new MoveInfo();
+    info.reset();
 
     while (!info.isAllInitialized()) {
       String command = sc.next();
@@ -235,7 +739,7 @@ public class AnimationFileReader {
           info.setToY(sc.nextFloat());
           break;
         case "name":
-          info.setName(sc.next());
+          info.setName(sc.nextName());
           break;
         case "from":
           info.setStart(sc.nextInt());
@@ -248,13 +752,11 @@ public class AnimationFileReader {
                   + "move");
       }
     }
-
-    return info;
   }
 
-  private ChangeColorInfo readChangeColorInfo(Scanner sc) throws
+  private void readChangeColorInfo(AnimationTokenizer sc, ChangeColorInfo info) throws
           IllegalStateException, InputMismatchException {
-    ChangeColorInfo info = new ChangeColorInfo();
+    info.reset();
 
     while (!info.isAllInitialized()) {
       String command = sc.next();
@@ -268,7 +770,7 @@ public class AnimationFileReader {
           info.setToB(sc.nextFloat());
           break;
         case "name":
-          info.setName(sc.next());
+          info.setName(sc.nextName());
           break;
         case "from":
           info.setStart(sc.nextInt());
@@ -281,13 +783,11 @@ public class AnimationFileReader {
                   + "change-color");
       }
     }
-
-    return info;
   }
 
-  private ScaleByInfo readScaleByInfo(Scanner sc) throws
+  private void readScaleByInfo(AnimationTokenizer sc, ScaleByInfo info) throws
           IllegalStateException, InputMismatchException {
-    ScaleByInfo info = new ScaleByInfo();
+    info.reset();
 
     while (!info.isAllInitialized()) {
       String command = sc.next();
@@ -299,7 +799,7 @@ public class AnimationFileReader {
           info.setToYScale(sc.nextFloat());
           break;
         case "name":
-          info.setName(sc.next());
+          info.setName(sc.nextName());
           break;
         case "from":
           info.setStart(sc.nextInt());
@@ -312,13 +812,11 @@ public class AnimationFileReader {
                   + "scale-to");
       }
     }
-
-    return info;
   }
 
-  private RotateInfo readRotateInfo(Scanner sc) throws
+  private void readRotateInfo(AnimationTokenizer sc, RotateInfo info) throws
           IllegalStateException, InputMismatchException {
-    RotateInfo info = new RotateInfo();
+    info.reset();
 
     while(!info.isAllInitialized()) {
       String command = sc.next();
@@ -328,7 +826,7 @@ public class AnimationFileReader {
           info.setToRot(sc.nextInt());
           break;
         case "name":
-          info.setName(sc.next());
+          info.setName(sc.nextName());
           break;
         case "from":
           info.setStart(sc.nextInt());
@@ -341,18 +839,17 @@ public class AnimationFileReader {
                   + "rotate");
       }
     }
-    return info;
   }
 
-  private LayerInfo readLayerInfo(Scanner sc) throws
+  private void readLayerInfo(AnimationTokenizer sc, LayerInfo info) throws
           IllegalStateException, InputMismatchException {
-    LayerInfo info = new LayerInfo();
+    info.reset();
 
     while (!info.isAllInitialized()) {
       String command = sc.next();
       switch (command) {
         case "name":
-          info.setName(sc.next());
+          info.setName(sc.nextName());
           break;
         case "layerorder":
           info.setLayerOrder(sc.nextInt());
@@ -362,28 +859,43 @@ public class AnimationFileReader {
                   + "layer");
       }
     }
-    return info;
   }
 
+  /**
+   * A record of the values read for one command. Each value has a bit in an int,
+   * which is set when the value is read, so checking if the command is complete
+   * does not allocate. A record is reset and reused for every command of its type.
+   */
   class Inputable {
-    protected Map<String, Boolean> valueFlags;
+    private final int requiredFlags;
+    private int valueFlags;
+
+    public Inputable(int requiredFlags) {
+      this.requiredFlags = requiredFlags;
+      valueFlags = 0;
+    }
 
-    public Inputable() {
-      valueFlags = new HashMap<String, Boolean>();
+    void reset() {
+      valueFlags = 0;
+    }
 
+    void setFlag(int flag) {
+      valueFlags |= flag;
     }
 
     public boolean isAllInitialized() {
-      for (Map.Entry<String, Boolean> entry : valueFlags.entrySet()) {
-        if (!entry.getValue()) {
-          return false;
-        }
-      }
-      return true;
+      return (valueFlags & requiredFlags) == requiredFlags;
     }
   }
 
   class ShapeInfo extends Inputable {
+    static final int NAME = 1 << 0;
+    static final int R = 1 << 1;
+    static final int G = 1 << 2;
+    static final int B = 1 << 3;
+    static final int START = 1 << 4;
+    static final int END = 1 << 5;
+
     private String name;
     private String layer;
     private float r;
@@ -393,51 +905,50 @@ public class AnimationFileReader {
     private int end;
 
 
-    ShapeInfo() {
-      super();
-      valueFlags.put("name", false);
-      valueFlags.put("layer", true);
-      valueFlags.put("r", false);
-      valueFlags.put("g", false);
-      valueFlags.put("b", false);
-      valueFlags.put("start", false);
-      valueFlags.put("end", false);
+    ShapeInfo(int requiredFlags) {
+      super(NAME | R | G | B | START | END | requiredFlags);
+    }
+
+    @Override
+    void reset() {
+      super.reset();
+      layer = null;
     }
 
     void setName(String name) {
       this.name = name;
-      valueFlags.replace("name", true);
+      setFlag(NAME);
     }
 
     void setLayer(String layer) {
       this.layer = layer;
-      //valueFlags.replace("layer", true);
+      //setFlag(LAYER);
     }
 
     void setR(float r) {
       this.r = r;
-      valueFlags.replace("r", true);
+      setFlag(R);
     }
 
     void setG(float g) {
       this.g = g;
-      valueFlags.replace("g", true);
+      setFlag(G);
     }
 
 
     void setB(float b) {
       this.b = b;
-      valueFlags.replace("b", true);
+      setFlag(B);
     }
 
     void setStart(int start) {
       this.start = start;
-      valueFlags.replace("start", true);
+      setFlag(START);
     }
 
     void setEnd(int end) {
       this.end = end;
-      valueFlags.replace("end", true);
+      setFlag(END);
     }
 
     float getR() {
@@ -472,37 +983,38 @@ public class AnimationFileReader {
   }
 
   class RectangleInfo extends ShapeInfo {
+    static final int X = 1 << 6;
+    static final int Y = 1 << 7;
+    static final int WIDTH = 1 << 8;
+    static final int HEIGHT = 1 << 9;
+
     private float x;
     private float y;
     private float width;
     private float height;
 
     RectangleInfo() {
-      super();
-      valueFlags.put("x", false);
-      valueFlags.put("y", false);
-      valueFlags.put("width", false);
-      valueFlags.put("height", false);
+      super(X | Y | WIDTH | HEIGHT);
     }
 
     void setX(float x) {
       this.x = x;
-      valueFlags.replace("x", true);
+      setFlag(X);
     }
 
     void setY(float y) {
       this.y = y;
-      valueFlags.replace("y", true);
+      setFlag(Y);
     }
 
     void setWidth(float width) {
       this.width = width;
-      valueFlags.replace("width", true);
+      setFlag(WIDTH);
     }
 
     void setHeight(float height) {
       this.height = height;
-      valueFlags.replace("height", true);
+      setFlag(HEIGHT);
     }
 
     float getX() {
@@ -523,37 +1035,38 @@ public class AnimationFileReader {
   }
 
   class OvalInfo extends ShapeInfo {
+    static final int CX = 1 << 6;
+    static final int CY = 1 << 7;
+    static final int XRADIUS = 1 << 8;
+    static final int YRADIUS = 1 << 9;
+
     private float cx;
     private float cy;
     private float xradius;
     private float yradius;
 
     OvalInfo() {
-      super();
-      valueFlags.put("cx", false);
-      valueFlags.put("cy", false);
-      valueFlags.put("xradius", false);
-      valueFlags.put("yradius", false);
+      super(CX | CY | XRADIUS | YRADIUS);
     }
 
     void setX(float x) {
       this.cx = x;
-      valueFlags.replace("cx", true);
+      setFlag(CX);
     }
 
     void setY(float y) {
       this.cy = y;
-      valueFlags.replace("cy", true);
+      setFlag(CY);
     }
 
     void setXRadius(float radius) {
       this.xradius = radius;
-      valueFlags.replace("xradius", true);
+      setFlag(XRADIUS);
     }
 
     void setYRadius(float radius) {
       this.yradius = radius;
-      valueFlags.replace("yradius", true);
+      setFlag(YRADIUS);
     }
 
     float getX() {
@@ -575,6 +1088,14 @@ public class AnimationFileReader {
   }
 
   class MoveInfo extends Inputable {
+    static final int NAME = 1 << 0;
+    static final int FROMX = 1 << 1;
+    static final int FROMY = 1 << 2;
+    static final int TOX = 1 << 3;
+    static final int TOY = 1 << 4;
+    static final int START = 1 << 5;
+    static final int END = 1 << 6;
+
     private String name;
     private float fromX;
     private float fromY;
@@ -584,52 +1105,44 @@ public class AnimationFileReader {
     private int end;
 
     MoveInfo() {
-      super();
-
-      valueFlags.put("name", false);
-      valueFlags.put("fromx", false);
-      valueFlags.put("fromy", false);
-      valueFlags.put("tox", false);
-      valueFlags.put("toy", false);
-      valueFlags.put("start", false);
-      valueFlags.put("end", false);
+      super(NAME | FROMX | FROMY | TOX | TOY | START | END);
 
     }
 
     void setName(String name) {
       this.name = name;
-      valueFlags.replace("name", true);
+      setFlag(NAME);
     }
 
     void setFromX(float x) {
       this.fromX = x;
-      valueFlags.replace("fromx", true);
+      setFlag(FROMX);
     }
 
     void setFromY(float y) {
       this.fromY = y;
-      valueFlags.replace("fromy", true);
+      setFlag(FROMY);
     }
 
 
     void setToX(float x) {
       this.toX = x;
-      valueFlags.replace("tox", true);
+      setFlag(TOX);
     }
 
     void setToY(float y) {
       this.toY = y;
-      valueFlags.replace("toy", true);
+      setFlag(TOY);
     }
 
     void setStart(int start) {
       this.start = start;
-      valueFlags.replace("start", true);
+      setFlag(START);
     }
 
     void setEnd(int end) {
       this.end = end;
-      valueFlags.replace("end", true);
+      setFlag(END);
     }
 
     String getName() {
@@ -663,6 +1176,16 @@ public class AnimationFileReader {
   }
 
   class ChangeColorInfo extends Inputable {
+    static final int NAME = 1 << 0;
+    static final int TOR = 1 << 1;
+    static final int TOG = 1 << 2;
+    static final int TOB = 1 << 3;
+    static final int FROMR = 1 << 4;
+    static final int FROMG = 1 << 5;
+    static final int FROMB = 1 << 6;
+    static final int START = 1 << 7;
+    static final int END = 1 << 8;
+
     private String name;
     private float fromR;
     private float fromG;
@@ -674,64 +1197,54 @@ public class AnimationFileReader {
     private int end;
 
     ChangeColorInfo() {
-      super();
-
-      valueFlags.put("name", false);
-      valueFlags.put("tor", false);
-      valueFlags.put("tog", false);
-      valueFlags.put("tob", false);
-      valueFlags.put("fromr", false);
-      valueFlags.put("fromg", false);
-      valueFlags.put("fromb", false);
-      valueFlags.put("start", false);
-      valueFlags.put("end", false);
+      super(NAME | TOR | TOG | TOB | FROMR | FROMG | FROMB | START | END);
 
     }
 
     void setName(String name) {
       this.name = name;
-      valueFlags.replace("name", true);
+      setFlag(NAME);
     }
 
     void setFromR(float r) {
       this.fromR = r;
-      valueFlags.replace("fromr", true);
+      setFlag(FROMR);
     }
 
     void setFromG(float g) {
       this.fromG = g;
-      valueFlags.replace("fromg", true);
+      setFlag(FROMG);
     }
 
     void setFromB(float b) {
       this.fromB = b;
-      valueFlags.replace("fromb", true);
+      setFlag(FROMB);
     }
 
 
     void setToR(float r) {
       this.toR = r;
-      valueFlags.replace("tor", true);
+      setFlag(TOR);
     }
 
     void setToG(float g) {
       this.toG = g;
-      valueFlags.replace("tog", true);
+      setFlag(TOG);
     }
 
     void setToB(float b) {
       this.toB = b;
-      valueFlags.replace("tob", true);
+      setFlag(TOB);
     }
 
     void setStart(int start) {
       this.start = start;
-      valueFlags.replace("start", true);
+      setFlag(START);
     }
 
     void setEnd(int end) {
       this.end = end;
-      valueFlags.replace("end", true);
+      setFlag(END);
     }
 
     String getName() {
@@ -773,6 +1286,14 @@ public class AnimationFileReader {
   }
 
   class ScaleByInfo extends Inputable {
+    static final int NAME = 1 << 0;
+    static final int FROMSX = 1 << 1;
+    static final int FROMSY = 1 << 2;
+    static final int TOSX = 1 << 3;
+    static final int TOSY = 1 << 4;
+    static final int START = 1 << 5;
+    static final int END = 1 << 6;
+
     private String name;
     private float fromSx;
     private float fromSy;
@@ -782,53 +1303,45 @@ public class AnimationFileReader {
     private int end;
 
     ScaleByInfo() {
-      super();
-
-      valueFlags.put("name", false);
-      valueFlags.put("fromsx", false);
-      valueFlags.put("fromsy", false);
-      valueFlags.put("tosx", false);
-      valueFlags.put("tosy", false);
-      valueFlags.put("start", false);
-      valueFlags.put("end", false);
+      super(NAME | FROMSX | FROMSY | TOSX | TOSY | START | END);
 
     }
 
     void setName(String name) {
       this.name = name;
-      valueFlags.replace("name", true);
+      setFlag(NAME);
     }
 
     void setFromXScale(float sx) {
       this.fromSx = sx;
-      valueFlags.replace("fromsx", true);
+      setFlag(FROMSX);
     }
 
     void setFromYScale(float sy) {
       this.fromSy = sy;
-      valueFlags.replace("fromsy", true);
+      setFlag(FROMSY);
     }
 
 
     void setToXScale(float sx) {
       this.toSx = sx;
-      valueFlags.replace("tosx", true);
+      setFlag(TOSX);
     }
 
     void setToYScale(float sy) {
       this.toSy = sy;
-      valueFlags.replace("tosy", true);
+      setFlag(TOSY);
     }
 
 
     void setStart(int start) {
       this.start = start;
-      valueFlags.replace("start", true);
+      setFlag(START);
     }
 
     void setEnd(int end) {
       this.end = end;
-      valueFlags.replace("end", true);
+      setFlag(END);
     }
 
     String getName() {
@@ -863,6 +1376,12 @@ public class AnimationFileReader {
   }
 
   class RotateInfo extends Inputable {
+    static final int NAME = 1 << 0;
+    static final int FROMROT = 1 << 1;
+    static final int TOROT = 1 << 2;
+    static final int START = 1 << 3;
+    static final int END = 1 << 4;
+
     private String name;
     private int fromRot;
     private int toRot;
@@ -870,39 +1389,33 @@ public class AnimationFileReader {
     private int end;
 
     RotateInfo() {
-      super();
-
-      valueFlags.put("name", false);
-      valueFlags.put("fromrot", false);
-      valueFlags.put("torot", false);
-      valueFlags.put("start", false);
-      valueFlags.put("end", false);
+      super(NAME | FROMROT | TOROT | START | END);
 
     }
 
     void setName(String name) {
       this.name = name;
-      valueFlags.replace("name", true);
+      setFlag(NAME);
     }
 
     void setFromRot(int rot) {
       this.fromRot = rot;
-      valueFlags.replace("fromrot", true);
+      setFlag(FROMROT);
     }
 
     void setToRot(int rot) {
       this.toRot = rot;
-      valueFlags.replace("torot", true);
+      setFlag(TOROT);
     }
 
     void setStart(int start) {
       this.start = start;
-      valueFlags.replace("start", true);
+      setFlag(START);
     }
 
     void setEnd(int end) {
       this.end = end;
-      valueFlags.replace("end", true);
+      setFlag(END);
     }
 
     String getName() {
@@ -927,24 +1440,24 @@ public class AnimationFileReader {
   }
 
   class LayerInfo extends Inputable {
+    static final int NAME = 1 << 0;
+    static final int LAYERORDER = 1 << 1;
+
     private String name;
     private int layerOrder;
 
     LayerInfo() {
-      super();
-
-      valueFlags.put("name", false);
-      valueFlags.put("layerorder", false);
+      super(NAME | LAYERORDER);
     }
 
     void setName(String name) {
       this.name = name;
-      valueFlags.replace("name", true);
+      setFlag(NAME);
     }
 
     void setLayerOrder(int order) {
       this.layerOrder = order;
-      valueFlags.replace("layerorder", true);
+      setFlag(LAYERORDER);
     }
 
     String getName() {
@@ -0,0 +1,402 @@
+package animator.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * This class splits the bytes of an animation file into whitespace separated tokens,
+ * the same way a Scanner with its default delimiter does. Tokens are read from a
+ * ByteBuffer, which is either the whole file (for example a memory-mapped file) or a
+ * window that is refilled from a channel. Numbers are parsed in place, keywords are
+ * matched against constant Strings, and shape and layer names are interned so each
+ * name is only created once. Interned names are matched by their bytes, so reading a
+ * name that has been read before creates nothing. Any other token is returned as a
+ * new String.
+ */
+final class AnimationTokenizer {
+  private static final int WINDOW_SIZE = 1 << 16;
+  private static final String[] KEYWORDS = {
+    "rectangle", "oval", "move", "change-color", "scale", "rotate", "layer", "name",
+    "min-x", "min-y", "width", "height", "center-x", "center-y", "x-radius", "y-radius",
+    "color", "from", "to", "moveto", "colorto", "scaleto", "rotateto", "layerorder"};
+  private static final byte[][] KEYWORD_BYTES = new byte[KEYWORDS.length][];
+  private static final double[] POWERS_OF_TEN = new double[23];
+
+  static {
+    for (int i = 0; i < KEYWORDS.length; i++) {
+      KEYWORD_BYTES[i] = KEYWORDS[i].getBytes(Charset.defaultCharset());
+    }
+    POWERS_OF_TEN[0] = 1.0;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+    }
+  }
+
+  private final ReadableByteChannel channel;
+  private ByteBuffer buffer;
+  private boolean endOfInput;
+  private int pos;
+  private int limit;
+  private int start;
+  private int end;
+  private String[] names;
+  private byte[][] nameBytes;
+  private int[] nameHashes;
+  private int nameCount;
+
+  /**
+   * Constructor for a tokenizer over bytes that are all in memory, from the buffer's
+   * position to its limit.
+   *
+   * @param bytes bytes to tokenize
+   */
+  AnimationTokenizer(ByteBuffer bytes) {
+    this(null, bytes);
+    endOfInput = true;
+  }
+
+  /**
+   * Constructor for a tokenizer that reads from a channel as tokens are needed.
+   *
+   * @param channel channel to read from
+   */
+  AnimationTokenizer(ReadableByteChannel channel) {
+    this(channel, emptyWindow());
+  }
+
+  private AnimationTokenizer(ReadableByteChannel channel, ByteBuffer bytes) {
+    this.channel = channel;
+    buffer = bytes;
+    endOfInput = false;
+    pos = bytes.position();
+    limit = bytes.limit();
+    start = pos;
+    end = pos;
+    names = new String[64];
+    nameBytes = new byte[64][];
+    nameHashes = new int[64];
+    nameCount = 0;
+  }
+
+  /**
+   * Checks if there is another token.
+   *
+   * @return true, if there is another token
+   */
+  boolean hasNext() {
+    skipWhitespace();
+    return pos < limit;
+  }
+
+  /**
+   * Gets the offset of the next token in the buffer, or the end of the buffer if
+   * there are no more tokens. Offsets are only meaningful when the whole input is in
+   * the buffer.
+   *
+   * @return offset of next token
+   */
+  int position() {
+    skipWhitespace();
+    return pos;
+  }
+
+  /**
+   * Moves to the given offset in the buffer, so the next token is read from there.
+   * This can only be used when the whole input is in the buffer.
+   *
+   * @param offset offset of the next token
+   * @throws IllegalStateException if the input is read from a channel
+   */
+  void seek(int offset) {
+    if (channel != null) {
+      throw new IllegalStateException("Cannot seek in a channel");
+    }
+    pos = offset;
+    start = offset;
+    end = offset;
+  }
+
+  /**
+   * Reads the next token. Keywords of the file format are returned as constant
+   * Strings, and other tokens are returned as new Strings.
+   *
+   * @return token
+   * @throws NoSuchElementException if there are no more tokens
+   */
+  String next() {
+    advance();
+    for (int i = 0; i < KEYWORD_BYTES.length; i++) {
+      if (tokenEquals(KEYWORD_BYTES[i])) {
+        return KEYWORDS[i];
+      }
+    }
+    return tokenString();
+  }
+
+  /**
+   * Reads the next token as a name. The same String is returned every time a name
+   * is read.
+   *
+   * @return name
+   * @throws NoSuchElementException if there are no more tokens
+   */
+  String nextName() {
+    advance();
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = (31 * hash) + buffer.get(i);
+    }
+    int mask = names.length - 1;
+    int slot = mix(hash) & mask;
+    while (names[slot] != null) {
+      if ((nameHashes[slot] == hash) && tokenEquals(nameBytes[slot])) {
+        return names[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    byte[] bytes = tokenBytes();
+    String name = new String(bytes, Charset.defaultCharset());
+    names[slot] = name;
+    nameBytes[slot] = bytes;
+    nameHashes[slot] = hash;
+    nameCount++;
+    if ((nameCount * 2) > names.length) {
+      rehashNames();
+    }
+    return name;
+  }
+
+  /**
+   * Reads the next token as an int.
+   *
+   * @return int value
+   * @throws InputMismatchException if the token is not an int
+   * @throws NoSuchElementException if there are no more tokens
+   */
+  int nextInt() {
+    advance();
+    int i = start;
+    boolean negative = false;
+    if ((buffer.get(i) == '-') || (buffer.get(i) == '+')) {
+      negative = buffer.get(i) == '-';
+      i++;
+    }
+    if (i == end) {
+      throw mismatch();
+    }
+    long value = 0;
+    for (; i < end; i++) {
+      int digit = buffer.get(i) - '0';
+      if ((digit < 0) || (digit > 9)) {
+        throw mismatch();
+      }
+      value = (value * 10) + digit;
+      if (value > ((long) Integer.MAX_VALUE + 1)) {
+        throw mismatch();
+      }
+    }
+    value = negative ? -value : value;
+    if (value > Integer.MAX_VALUE) {
+      throw mismatch();
+    }
+    return (int) value;
+  }
+
+  /**
+   * Reads the next token as a float. Plain decimal numbers are parsed in place and
+   * rounded exactly as Float.parseFloat would, and anything else falls back to it.
+   *
+   * @return float value
+   * @throws InputMismatchException if the token is not a float
+   * @throws NoSuchElementException if there are no more tokens
+   */
+  float nextFloat() {
+    advance();
+    int i = start;
+    boolean negative = false;
+    if ((buffer.get(i) == '-') || (buffer.get(i) == '+')) {
+      negative = buffer.get(i) == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int fractionDigits = -1;
+    for (; i < end; i++) {
+      byte b = buffer.get(i);
+      if ((b == '.') && (fractionDigits < 0)) {
+        fractionDigits = 0;
+        continue;
+      }
+      int digit = b - '0';
+      if ((digit < 0) || (digit > 9) || (mantissa >= (1L << 53) / 10)) {
+        return parseFloatToken();
+      }
+      mantissa = (mantissa * 10) + digit;
+      digits++;
+      if (fractionDigits >= 0) {
+        fractionDigits++;
+      }
+    }
+    if ((digits == 0) || (fractionDigits >= POWERS_OF_TEN.length)) {
+      return parseFloatToken();
+    }
+
+    // The quotient is the correctly rounded double, so rounding it to a float gives
+    // the correctly rounded float unless it lies exactly halfway between two floats.
+    double value = (fractionDigits > 0) ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+    long halfwayBits = Double.doubleToRawLongBits(value) & ((1L << 29) - 1);
+    if ((value != 0.0) && ((halfwayBits == (1L << 28)) || (value < Float.MIN_NORMAL))) {
+      return parseFloatToken();
+    }
+    float result = (float) value;
+    return negative ? -result : result;
+  }
+
+  /**
+   * Moves to the next token.
+   *
+   * @throws NoSuchElementException if there are no more tokens
+   */
+  private void advance() {
+    skipWhitespace();
+    if (pos >= limit) {
+      throw new NoSuchElementException();
+    }
+    start = pos;
+    while (true) {
+      while ((pos < limit) && !isWhitespace(buffer.get(pos))) {
+        pos++;
+      }
+      if ((pos < limit) || !fill()) {
+        break;
+      }
+    }
+    end = pos;
+  }
+
+  private void skipWhitespace() {
+    while (true) {
+      while ((pos < limit) && isWhitespace(buffer.get(pos))) {
+        pos++;
+      }
+      start = pos;
+      end = pos;
+      if ((pos < limit) || !fill()) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Reads more bytes from the channel, keeping the bytes of the current token.
+   *
+   * @return true, if more bytes were read
+   */
+  private boolean fill() {
+    if (endOfInput) {
+      return false;
+    }
+    int keep = start;
+    buffer.limit(limit);
+    buffer.position(keep);
+    if ((limit - keep) == buffer.capacity()) {
+      ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+      larger.put(buffer);
+      buffer = larger;
+    }
+    else {
+      buffer.compact();
+    }
+    start -= keep;
+    pos -= keep;
+    try {
+      int read = 0;
+      while (read == 0) {
+        read = channel.read(buffer);
+      }
+      endOfInput = read < 0;
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Could not read animation file", e);
+    }
+    buffer.flip();
+    limit = buffer.limit();
+    return pos < limit;
+  }
+
+  private boolean tokenEquals(byte[] bytes) {
+    if (bytes.length != (end - start)) {
+      return false;
+    }
+    for (int i = 0; i < bytes.length; i++) {
+      if (bytes[i] != buffer.get(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void rehashNames() {
+    String[] oldNames = names;
+    byte[][] oldBytes = nameBytes;
+    int[] oldHashes = nameHashes;
+    names = new String[oldNames.length * 2];
+    nameBytes = new byte[names.length][];
+    nameHashes = new int[names.length];
+    int mask = names.length - 1;
+    for (int i = 0; i < oldNames.length; i++) {
+      if (oldNames[i] != null) {
+        int slot = mix(oldHashes[i]) & mask;
+        while (names[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        names[slot] = oldNames[i];
+        nameBytes[slot] = oldBytes[i];
+        nameHashes[slot] = oldHashes[i];
+      }
+    }
+  }
+
+  private String tokenString() {
+    return new String(tokenBytes(), Charset.defaultCharset());
+  }
+
+  private byte[] tokenBytes() {
+    byte[] bytes = new byte[end - start];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = buffer.get(start + i);
+    }
+    return bytes;
+  }
+
+  private float parseFloatToken() {
+    try {
+      return Float.parseFloat(tokenString());
+    }
+    catch (NumberFormatException e) {
+      throw mismatch();
+    }
+  }
+
+  private InputMismatchException mismatch() {
+    return new InputMismatchException("For input string: \"" + tokenString() + "\"");
+  }
+
+  private static ByteBuffer emptyWindow() {
+    ByteBuffer window = ByteBuffer.allocateDirect(WINDOW_SIZE);
+    window.limit(0);
+    return window;
+  }
+
+  private static int mix(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return (b == ' ') || ((b >= '\t') && (b <= '\r')) || ((b >= 0x1C) && (b <= 0x1F));
+  }
+}
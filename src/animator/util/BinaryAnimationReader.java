@@ -0,0 +1,259 @@
+package animator.util;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class reads an animation file in the compact binary format written by
+ * BinaryAnimationWriter, and relies on a model builder interface the same way
+ * AnimationFileReader does. The file is mapped into memory and its records are read
+ * in place. All values are little-endian. The file holds:
+ * <ul>
+ *   <li>the magic number "ANIM" and the format version</li>
+ *   <li>the number of strings and the number of records</li>
+ *   <li>the string table: each shape and layer name once, as its length followed by
+ *   its UTF-8 bytes, padded to a multiple of four bytes</li>
+ *   <li>the records: one for each command, RECORD_SIZE bytes long</li>
+ * </ul>
+ * A record is twelve ints: the command, the name's index in the string table, the
+ * layer's index or -1, seven values, and the start and end times. The values are the
+ * command's float arguments in the order the builder takes them, except for the
+ * rotation and layer order arguments, which are ints.
+ */
+public final class BinaryAnimationReader {
+  static final int MAGIC = 0x4D494E41;
+  static final int VERSION = 1;
+  static final int RECORD_SIZE = 48;
+  static final int VALUE_COUNT = 7;
+
+  static final int OVAL = 0;
+  static final int RECTANGLE = 1;
+  static final int MOVE = 2;
+  static final int COLOR_CHANGE = 3;
+  static final int SCALE_CHANGE = 4;
+  static final int ROTATE_CHANGE = 5;
+  static final int LAYER = 6;
+
+  /**
+   * Read the binary animation file and use the builder to build a model.
+   *
+   * @param fileName the path of the file to be read
+   * @param builder  the builder used to build the model
+   * @param <T>      the type of model
+   * @return the model
+   * @throws FileNotFoundException if the specified file cannot be read
+   * @throws IllegalStateException if the file is not a valid binary animation
+   */
+  public <T> T readFile(String fileName, TweenModelBuilder<T> builder) throws
+          FileNotFoundException, IllegalStateException {
+    try (FileChannel channel = new FileInputStream(fileName).getChannel()) {
+      return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), builder);
+    }
+    catch (FileNotFoundException e) {
+      throw e;
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Could not read file " + fileName, e);
+    }
+  }
+
+  /**
+   * Checks if the given bytes begin with the magic number of the binary format.
+   *
+   * @param file the contents of a file
+   * @return true, if the file is a binary animation
+   */
+  static boolean isBinaryAnimation(ByteBuffer file) {
+    return (file.limit() >= 4)
+            && (file.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt(0) == MAGIC);
+  }
+
+  /**
+   * Checks that the given bytes are a complete binary animation of the current
+   * version, with every string and record inside the file and every record holding a
+   * known command. A file that passes can be read without failing partway through.
+   *
+   * @param file the contents of a file
+   * @return true, if the file can be read
+   */
+  static boolean isValid(ByteBuffer file) {
+    ByteBuffer bytes = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    if ((bytes.limit() < 16) || (bytes.getInt(0) != MAGIC) || (bytes.getInt(4) != VERSION)) {
+      return false;
+    }
+    int stringCount = bytes.getInt(8);
+    int recordCount = bytes.getInt(12);
+    if ((stringCount < 0) || (recordCount < 0)) {
+      return false;
+    }
+    long offset = 16;
+    for (int i = 0; i < stringCount; i++) {
+      if ((offset + 4) > bytes.limit()) {
+        return false;
+      }
+      int length = bytes.getInt((int) offset);
+      if (length < 0) {
+        return false;
+      }
+      offset += 4 + length;
+      if (offset > bytes.limit()) {
+        return false;
+      }
+      offset = padded((int) offset);
+    }
+    if ((offset + ((long) recordCount * RECORD_SIZE)) != bytes.limit()) {
+      return false;
+    }
+    for (int i = 0; i < recordCount; i++) {
+      int record = (int) offset + (i * RECORD_SIZE);
+      int command = bytes.getInt(record);
+      int name = bytes.getInt(record + 4);
+      int layer = bytes.getInt(record + 8);
+      if ((command < OVAL) || (command > LAYER) || (name < 0) || (name >= stringCount)
+              || (layer < -1) || (layer >= stringCount)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Reads the contents of a binary animation file and uses the builder to build a
+   * model. Every string length and string index is checked against the file, so a
+   * damaged file fails with an IllegalStateException rather than partway through
+   * with another exception.
+   *
+   * @param file    the contents of the file
+   * @param builder the builder used to build the model
+   * @param <T>     the type of model
+   * @return the model
+   * @throws IllegalStateException if the file is not a valid binary animation
+   */
+  <T> T read(ByteBuffer file, TweenModelBuilder<T> builder) throws IllegalStateException {
+    ByteBuffer bytes = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    if ((bytes.limit() < 16) || (bytes.getInt(0) != MAGIC)) {
+      throw new IllegalStateException("Not a binary animation file");
+    }
+    if (bytes.getInt(4) != VERSION) {
+      throw new IllegalStateException("Unsupported binary animation version "
+              + bytes.getInt(4));
+    }
+    int stringCount = bytes.getInt(8);
+    int recordCount = bytes.getInt(12);
+    if ((stringCount < 0) || (recordCount < 0)) {
+      throw new IllegalStateException("Invalid counts in binary animation file");
+    }
+
+    String[] strings = new String[stringCount];
+    int offset = 16;
+    byte[] stringBytes = new byte[64];
+    for (int i = 0; i < strings.length; i++) {
+      if ((offset + 4) > bytes.limit()) {
+        throw new IllegalStateException("Binary animation file is truncated");
+      }
+      int length = bytes.getInt(offset);
+      if ((length < 0) || (length > (bytes.limit() - offset - 4))) {
+        throw new IllegalStateException("Binary animation file is truncated");
+      }
+      if (length > stringBytes.length) {
+        stringBytes = new byte[length];
+      }
+      bytes.position(offset + 4);
+      bytes.get(stringBytes, 0, length);
+      strings[i] = new String(stringBytes, 0, length, StandardCharsets.UTF_8);
+      offset = padded(offset + 4 + length);
+    }
+    if (((long) offset + ((long) recordCount * RECORD_SIZE)) > bytes.limit()) {
+      throw new IllegalStateException("Binary animation file is truncated");
+    }
+
+    for (int i = 0; i < recordCount; i++) {
+      readRecord(bytes, offset + (i * RECORD_SIZE), strings, builder);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Makes the command in the record at the given offset on the builder.
+   */
+  private <T> void readRecord(ByteBuffer bytes, int offset, String[] strings,
+                              TweenModelBuilder<T> builder) {
+    int nameIndex = bytes.getInt(offset + 4);
+    int layerIndex = bytes.getInt(offset + 8);
+    if ((nameIndex < 0) || (nameIndex >= strings.length) || (layerIndex < -1)
+            || (layerIndex >= strings.length)) {
+      throw new IllegalStateException("Invalid string index in binary animation file");
+    }
+    String name = strings[nameIndex];
+    String layer = (layerIndex >= 0) ? strings[layerIndex] : null;
+    int values = offset + 12;
+    int start = bytes.getInt(offset + 40);
+    int end = bytes.getInt(offset + 44);
+
+    switch (bytes.getInt(offset)) {
+      case OVAL:
+        if (layer != null) {
+          builder.addOval(name, layer, bytes.getFloat(values), bytes.getFloat(values + 4),
+                  bytes.getFloat(values + 8), bytes.getFloat(values + 12),
+                  bytes.getFloat(values + 16), bytes.getFloat(values + 20),
+                  bytes.getFloat(values + 24), start, end);
+        }
+        else {
+          builder.addOval(name, bytes.getFloat(values), bytes.getFloat(values + 4),
+                  bytes.getFloat(values + 8), bytes.getFloat(values + 12),
+                  bytes.getFloat(values + 16), bytes.getFloat(values + 20),
+                  bytes.getFloat(values + 24), start, end);
+        }
+        break;
+      case RECTANGLE:
+        if (layer != null) {
+          builder.addRectangle(name, layer, bytes.getFloat(values),
+                  bytes.getFloat(values + 4), bytes.getFloat(values + 8),
+                  bytes.getFloat(values + 12), bytes.getFloat(values + 16),
+                  bytes.getFloat(values + 20), bytes.getFloat(values + 24), start, end);
+        }
+        else {
+          builder.addRectangle(name, bytes.getFloat(values), bytes.getFloat(values + 4),
+                  bytes.getFloat(values + 8), bytes.getFloat(values + 12),
+                  bytes.getFloat(values + 16), bytes.getFloat(values + 20),
+                  bytes.getFloat(values + 24), start, end);
+        }
+        break;
+      case MOVE:
+        builder.addMove(name, bytes.getFloat(values), bytes.getFloat(values + 4),
+                bytes.getFloat(values + 8), bytes.getFloat(values + 12), start, end);
+        break;
+      case COLOR_CHANGE:
+        builder.addColorChange(name, bytes.getFloat(values), bytes.getFloat(values + 4),
+                bytes.getFloat(values + 8), bytes.getFloat(values + 12),
+                bytes.getFloat(values + 16), bytes.getFloat(values + 20), start, end);
+        break;
+      case SCALE_CHANGE:
+        builder.addScaleToChange(name, bytes.getFloat(values), bytes.getFloat(values + 4),
+                bytes.getFloat(values + 8), bytes.getFloat(values + 12), start, end);
+        break;
+      case ROTATE_CHANGE:
+        builder.addRotateChange(name, bytes.getInt(values), bytes.getInt(values + 4), start,
+                end);
+        break;
+      case LAYER:
+        builder.addLayer(name, bytes.getInt(values));
+        break;
+      default:
+        throw new IllegalStateException("Invalid command " + bytes.getInt(offset)
+                + " in binary animation file");
+    }
+  }
+
+  /**
+   * Rounds an offset up to a multiple of four bytes.
+   */
+  static int padded(int offset) {
+    return (offset + 3) & ~3;
+  }
+}
@@ -0,0 +1,214 @@
+package animator.util;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is a builder that encodes the commands of an animation in the compact
+ * binary format read by BinaryAnimationReader, instead of building a model. Any
+ * file AnimationFileReader can read can be converted by reading it with this
+ * builder. Each name is stored once in the string table, and each command becomes a
+ * fixed-width record.
+ */
+public final class BinaryAnimationWriter implements TweenModelBuilder<ByteBuffer> {
+  private final Map<String, Integer> stringIndexes;
+  private final List<String> strings;
+  private ByteBuffer records;
+  private int recordCount;
+
+  /**
+   * Constructor for a writer with no commands.
+   */
+  public BinaryAnimationWriter() {
+    stringIndexes = new HashMap<>();
+    strings = new ArrayList<>();
+    records = ByteBuffer.allocate(BinaryAnimationReader.RECORD_SIZE * 64)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    recordCount = 0;
+  }
+
+  /**
+   * Reads an animation file and writes it to another file in the binary format.
+   *
+   * @param inputFile  the path of the file to be read
+   * @param outputFile the path of the binary file to write
+   * @throws IOException if a file cannot be read or written
+   */
+  public static void convert(String inputFile, String outputFile) throws IOException {
+    ByteBuffer encoded = new AnimationFileReader().readFile(inputFile,
+            new BinaryAnimationWriter());
+    try (FileChannel channel = new FileOutputStream(outputFile).getChannel()) {
+      while (encoded.hasRemaining()) {
+        channel.write(encoded);
+      }
+    }
+  }
+
+  @Override
+  public TweenModelBuilder<ByteBuffer> addOval(String name, float cx, float cy,
+                                               float xRadius, float yRadius, float red,
+                                               float green, float blue, int startOfLife,
+                                               int endOfLife) {
+    record(BinaryAnimationReader.OVAL, name, null, startOfLife, endOfLife);
+    values(cx, cy, xRadius, yRadius, red, green, blue);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ByteBuffer> addOval(String name, String layer, float cx, float cy,
+                                               float xRadius, float yRadius, float red,
+                                               float green, float blue, int startOfLife,
+                                               int endOfLife) {
+    record(BinaryAnimationReader.OVAL, name, layer, startOfLife, endOfLife);
+    values(cx, cy, xRadius, yRadius, red, green, blue);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ByteBuffer> addRectangle(String name, float lx, float ly,
+                                                    float width, float height, float red,
+                                                    float green, float blue, int startOfLife,
+                                                    int endOfLife) {
+    record(BinaryAnimationReader.RECTANGLE, name, null, startOfLife, endOfLife);
+    values(lx, ly, width, height, red, green, blue);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ByteBuffer> addRectangle(String name, String layer, float lx,
+                                                    float ly, float width, float height,
+                                                    float red, float green, float blue,
+                                                    int startOfLife, int endOfLife) {
+    record(BinaryAnimationReader.RECTANGLE, name, layer, startOfLife, endOfLife);
+    values(lx, ly, width, height, red, green, blue);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ByteBuffer> addMove(String name, float moveFromX, float moveFromY,
+                                               float moveToX, float moveToY, int startTime,
+                                               int endTime) {
+    record(BinaryAnimationReader.MOVE, name, null, startTime, endTime);
+    values(moveFromX, moveFromY, moveToX, moveToY);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ByteBuffer> addColorChange(String name, float oldR, float oldG,
+                                                      float oldB, float newR, float newG,
+                                                      float newB, int startTime,
+                                                      int endTime) {
+    record(BinaryAnimationReader.COLOR_CHANGE, name, null, startTime, endTime);
+    values(oldR, oldG, oldB, newR, newG, newB);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ByteBuffer> addScaleToChange(String name, float fromSx,
+                                                        float fromSy, float toSx, float toSy,
+                                                        int startTime, int endTime) {
+    record(BinaryAnimationReader.SCALE_CHANGE, name, null, startTime, endTime);
+    values(fromSx, fromSy, toSx, toSy);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ByteBuffer> addRotateChange(String name, int fromRot, int toRot,
+                                                       int startTime, int endTime) {
+    int offset = record(BinaryAnimationReader.ROTATE_CHANGE, name, null, startTime, endTime);
+    records.putInt(offset + 12, fromRot);
+    records.putInt(offset + 16, toRot);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ByteBuffer> addLayer(String name, int order) {
+    int offset = record(BinaryAnimationReader.LAYER, name, null, 0, 0);
+    records.putInt(offset + 12, order);
+    return this;
+  }
+
+  /**
+   * Encodes the commands added so far.
+   *
+   * @return the contents of the binary file, little-endian
+   */
+  @Override
+  public ByteBuffer build() {
+    List<byte[]> encodedStrings = new ArrayList<>(strings.size());
+    int size = 16;
+    for (String string : strings) {
+      byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+      encodedStrings.add(encoded);
+      size = BinaryAnimationReader.padded(size + 4 + encoded.length);
+    }
+    int recordsSize = recordCount * BinaryAnimationReader.RECORD_SIZE;
+
+    ByteBuffer file = ByteBuffer.allocate(size + recordsSize).order(ByteOrder.LITTLE_ENDIAN);
+    file.putInt(BinaryAnimationReader.MAGIC);
+    file.putInt(BinaryAnimationReader.VERSION);
+    file.putInt(strings.size());
+    file.putInt(recordCount);
+    for (byte[] encoded : encodedStrings) {
+      file.putInt(encoded.length);
+      file.put(encoded);
+      file.position(BinaryAnimationReader.padded(file.position()));
+    }
+    file.put(records.array(), 0, recordsSize);
+    file.flip();
+    return file;
+  }
+
+  /**
+   * Starts a new record, filling in the fields every command has.
+   *
+   * @return offset of the record in the record buffer
+   */
+  private int record(int command, String name, String layer, int start, int end) {
+    int offset = recordCount * BinaryAnimationReader.RECORD_SIZE;
+    if ((offset + BinaryAnimationReader.RECORD_SIZE) > records.capacity()) {
+      ByteBuffer grown = ByteBuffer.allocate(records.capacity() * 2)
+              .order(ByteOrder.LITTLE_ENDIAN);
+      grown.put(records.array(), 0, offset);
+      records = grown;
+    }
+    recordCount++;
+    records.putInt(offset, command);
+    records.putInt(offset + 4, stringIndex(name));
+    records.putInt(offset + 8, (layer != null) ? stringIndex(layer) : -1);
+    for (int i = 0; i < BinaryAnimationReader.VALUE_COUNT; i++) {
+      records.putInt(offset + 12 + (i * 4), 0);
+    }
+    records.putInt(offset + 40, start);
+    records.putInt(offset + 44, end);
+    return offset;
+  }
+
+  /**
+   * Fills in the float values of the last record.
+   */
+  private void values(float... values) {
+    int offset = ((recordCount - 1) * BinaryAnimationReader.RECORD_SIZE) + 12;
+    for (int i = 0; i < values.length; i++) {
+      records.putFloat(offset + (i * 4), values[i]);
+    }
+  }
+
+  private int stringIndex(String string) {
+    Integer index = stringIndexes.get(string);
+    if (index == null) {
+      index = strings.size();
+      strings.add(string);
+      stringIndexes.put(string, index);
+    }
+    return index;
+  }
+}
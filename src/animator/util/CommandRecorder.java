@@ -0,0 +1,341 @@
+package animator.util;
+
+/**
+ * This class is a builder that records the commands read from part of an animation
+ * file instead of building a model, so the part can be read on its own thread and
+ * the commands replayed into the real builder later, in file order. The arguments
+ * of the commands are kept in primitive arrays. It also records where its part of
+ * the file began and ended, the error that stopped it, if any, and the range of
+ * layer orders its commands use.
+ */
+final class CommandRecorder implements TweenModelBuilder<Void> {
+  private static final byte OVAL = 0;
+  private static final byte OVAL_IN_LAYER = 1;
+  private static final byte RECTANGLE = 2;
+  private static final byte RECTANGLE_IN_LAYER = 3;
+  private static final byte MOVE = 4;
+  private static final byte COLOR_CHANGE = 5;
+  private static final byte SCALE_CHANGE = 6;
+  private static final byte ROTATE_CHANGE = 7;
+  private static final byte LAYER = 8;
+
+  private final int start;
+  private int end;
+  private RuntimeException failure;
+  private byte[] commands;
+  private int commandCount;
+  private float[] floats;
+  private int floatCount;
+  private int[] ints;
+  private int intCount;
+  private String[] strings;
+  private int stringCount;
+  private boolean hasLayerOrders;
+  private boolean usesDefaultLayer;
+  private int lowestLayerOrder;
+  private int highestLayerOrder;
+
+  /**
+   * Constructor for an empty recorder.
+   *
+   * @param start offset of the first command in the file
+   */
+  CommandRecorder(int start) {
+    this.start = start;
+    end = start;
+    failure = null;
+    commands = new byte[64];
+    floats = new float[256];
+    ints = new int[128];
+    strings = new String[128];
+  }
+
+  /**
+   * Gets the offset in the file of the first command recorded.
+   *
+   * @return offset of first command
+   */
+  int getStart() {
+    return start;
+  }
+
+  /**
+   * Gets the offset in the file of the command after the last one recorded.
+   *
+   * @return offset of next command
+   */
+  int getEnd() {
+    return end;
+  }
+
+  void setEnd(int end) {
+    this.end = end;
+  }
+
+  /**
+   * Checks if any command recorded adds a layer or a shape without a layer.
+   *
+   * @return true, if the commands use any layer order
+   */
+  boolean hasLayerOrders() {
+    return hasLayerOrders;
+  }
+
+  /**
+   * Checks if any shape recorded is not in a layer, which puts it in the default
+   * layer of order 0.
+   *
+   * @return true, if a shape is in the default layer
+   */
+  boolean usesDefaultLayer() {
+    return usesDefaultLayer;
+  }
+
+  /**
+   * Gets the lowest layer order used, counting the default layer.
+   *
+   * @return lowest layer order
+   */
+  int getLowestLayerOrder() {
+    return lowestLayerOrder;
+  }
+
+  /**
+   * Gets the highest layer order used, counting the default layer.
+   *
+   * @return highest layer order
+   */
+  int getHighestLayerOrder() {
+    return highestLayerOrder;
+  }
+
+  /**
+   * Records the error that stopped the part of the file from being read. It is
+   * thrown when the commands before it have been replayed.
+   *
+   * @param failure error thrown while reading
+   */
+  void fail(RuntimeException failure) {
+    this.failure = failure;
+  }
+
+  /**
+   * Makes the recorded commands on the given builder, in the order they were read.
+   *
+   * @param builder builder to replay into
+   * @throws RuntimeException the error that stopped the part from being read
+   */
+  void replay(TweenModelBuilder<?> builder) {
+    int f = 0;
+    int i = 0;
+    int s = 0;
+    for (int c = 0; c < commandCount; c++) {
+      switch (commands[c]) {
+        case OVAL:
+          builder.addOval(strings[s++], floats[f++], floats[f++], floats[f++], floats[f++],
+                  floats[f++], floats[f++], floats[f++], ints[i++], ints[i++]);
+          break;
+        case OVAL_IN_LAYER:
+          builder.addOval(strings[s++], strings[s++], floats[f++], floats[f++], floats[f++],
+                  floats[f++], floats[f++], floats[f++], floats[f++], ints[i++], ints[i++]);
+          break;
+        case RECTANGLE:
+          builder.addRectangle(strings[s++], floats[f++], floats[f++], floats[f++],
+                  floats[f++], floats[f++], floats[f++], floats[f++], ints[i++], ints[i++]);
+          break;
+        case RECTANGLE_IN_LAYER:
+          builder.addRectangle(strings[s++], strings[s++], floats[f++], floats[f++],
+                  floats[f++], floats[f++], floats[f++], floats[f++], floats[f++], ints[i++],
+                  ints[i++]);
+          break;
+        case MOVE:
+          builder.addMove(strings[s++], floats[f++], floats[f++], floats[f++], floats[f++],
+                  ints[i++], ints[i++]);
+          break;
+        case COLOR_CHANGE:
+          builder.addColorChange(strings[s++], floats[f++], floats[f++], floats[f++],
+                  floats[f++], floats[f++], floats[f++], ints[i++], ints[i++]);
+          break;
+        case SCALE_CHANGE:
+          builder.addScaleToChange(strings[s++], floats[f++], floats[f++], floats[f++],
+                  floats[f++], ints[i++], ints[i++]);
+          break;
+        case ROTATE_CHANGE:
+          builder.addRotateChange(strings[s++], ints[i++], ints[i++], ints[i++], ints[i++]);
+          break;
+        case LAYER:
+          builder.addLayer(strings[s++], ints[i++]);
+          break;
+        default:
+          throw new IllegalStateException("Invalid recorded command");
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public TweenModelBuilder<Void> addOval(String name, float cx, float cy, float xRadius,
+                                         float yRadius, float red, float green, float blue,
+                                         int startOfLife, int endOfLife) {
+    command(OVAL);
+    defaultLayer();
+    string(name);
+    floats(cx, cy, xRadius, yRadius, red, green, blue);
+    ints(startOfLife, endOfLife);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<Void> addOval(String name, String layer, float cx, float cy,
+                                         float xRadius, float yRadius, float red,
+                                         float green, float blue, int startOfLife,
+                                         int endOfLife) {
+    command(OVAL_IN_LAYER);
+    string(name);
+    string(layer);
+    floats(cx, cy, xRadius, yRadius, red, green, blue);
+    ints(startOfLife, endOfLife);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<Void> addRectangle(String name, float lx, float ly, float width,
+                                              float height, float red, float green,
+                                              float blue, int startOfLife, int endOfLife) {
+    command(RECTANGLE);
+    defaultLayer();
+    string(name);
+    floats(lx, ly, width, height, red, green, blue);
+    ints(startOfLife, endOfLife);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<Void> addRectangle(String name, String layer, float lx, float ly,
+                                              float width, float height, float red,
+                                              float green, float blue, int startOfLife,
+                                              int endOfLife) {
+    command(RECTANGLE_IN_LAYER);
+    string(name);
+    string(layer);
+    floats(lx, ly, width, height, red, green, blue);
+    ints(startOfLife, endOfLife);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<Void> addMove(String name, float moveFromX, float moveFromY,
+                                         float moveToX, float moveToY, int startTime,
+                                         int endTime) {
+    command(MOVE);
+    string(name);
+    floats(moveFromX, moveFromY, moveToX, moveToY);
+    ints(startTime, endTime);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<Void> addColorChange(String name, float oldR, float oldG,
+                                                float oldB, float newR, float newG,
+                                                float newB, int startTime, int endTime) {
+    command(COLOR_CHANGE);
+    string(name);
+    floats(oldR, oldG, oldB, newR, newG, newB);
+    ints(startTime, endTime);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<Void> addScaleToChange(String name, float fromSx, float fromSy,
+                                                  float toSx, float toSy, int startTime,
+                                                  int endTime) {
+    command(SCALE_CHANGE);
+    string(name);
+    floats(fromSx, fromSy, toSx, toSy);
+    ints(startTime, endTime);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<Void> addRotateChange(String name, int fromRot, int toRot,
+                                                 int startTime, int endTime) {
+    command(ROTATE_CHANGE);
+    string(name);
+    ints(fromRot, toRot, startTime, endTime);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<Void> addLayer(String name, int order) {
+    command(LAYER);
+    string(name);
+    ints(order);
+    layerOrder(order);
+    return this;
+  }
+
+  /**
+   * A recorder does not build a model.
+   *
+   * @return null
+   */
+  @Override
+  public Void build() {
+    return null;
+  }
+
+  private void defaultLayer() {
+    usesDefaultLayer = true;
+    layerOrder(0);
+  }
+
+  private void layerOrder(int order) {
+    if (!hasLayerOrders) {
+      lowestLayerOrder = order;
+      highestLayerOrder = order;
+      hasLayerOrders = true;
+    }
+    lowestLayerOrder = Math.min(lowestLayerOrder, order);
+    highestLayerOrder = Math.max(highestLayerOrder, order);
+  }
+
+  private void command(byte command) {
+    if (commandCount == commands.length) {
+      byte[] grown = new byte[commands.length * 2];
+      System.arraycopy(commands, 0, grown, 0, commandCount);
+      commands = grown;
+    }
+    commands[commandCount++] = command;
+  }
+
+  private void string(String value) {
+    if (stringCount == strings.length) {
+      String[] grown = new String[strings.length * 2];
+      System.arraycopy(strings, 0, grown, 0, stringCount);
+      strings = grown;
+    }
+    strings[stringCount++] = value;
+  }
+
+  private void floats(float... values) {
+    if ((floatCount + values.length) > floats.length) {
+      float[] grown = new float[floats.length * 2];
+      System.arraycopy(floats, 0, grown, 0, floatCount);
+      floats = grown;
+    }
+    System.arraycopy(values, 0, floats, floatCount, values.length);
+    floatCount += values.length;
+  }
+
+  private void ints(int... values) {
+    if ((intCount + values.length) > ints.length) {
+      int[] grown = new int[ints.length * 2];
+      System.arraycopy(ints, 0, grown, 0, intCount);
+      ints = grown;
+    }
+    System.arraycopy(values, 0, ints, intCount, values.length);
+    intCount += values.length;
+  }
+}
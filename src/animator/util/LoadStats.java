@@ -0,0 +1,418 @@
+package animator.util;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Locale;
+
+/**
+ * This class collects timings and counts for loading an animation, to show where the
+ * time goes. Builder calls are timed by wrapping the builder with instrument, which
+ * also counts the commands of each type. The time between start and stop that is
+ * not spent in the builder is the time spent reading and tokenizing the files. The
+ * files loaded are given to addInput, which counts their bytes and, for plain text
+ * files, their lines, after the load so it is not part of the timings. A LoadStats
+ * is used on the thread that makes the builder calls.
+ */
+public final class LoadStats {
+  private static final String[] COMMANDS = {
+    "oval", "rectangle", "move", "change-color", "scale", "rotate", "layer"};
+  private static final int OVAL = 0;
+  private static final int RECTANGLE = 1;
+  private static final int MOVE = 2;
+  private static final int COLOR_CHANGE = 3;
+  private static final int SCALE_CHANGE = 4;
+  private static final int ROTATE_CHANGE = 5;
+  private static final int LAYER = 6;
+
+  private final long[] commandCounts;
+  private long startNanos;
+  private long totalNanos;
+  private long builderNanos;
+  private long finishNanos;
+  private int files;
+  private long bytes;
+  private long lines;
+  private int timelineSize;
+
+  /**
+   * Constructor for empty stats.
+   */
+  public LoadStats() {
+    commandCounts = new long[COMMANDS.length];
+  }
+
+  /**
+   * Wraps a builder so the time spent in it is measured and its commands are
+   * counted.
+   *
+   * @param builder the builder used to build the model
+   * @param <T>     the type of model
+   * @return a builder that passes every command on to the given one
+   */
+  public <T> TweenModelBuilder<T> instrument(TweenModelBuilder<T> builder) {
+    return new TimedBuilder<>(builder);
+  }
+
+  /**
+   * Starts timing the load.
+   */
+  public void start() {
+    startNanos = System.nanoTime();
+  }
+
+  /**
+   * Stops timing the load.
+   */
+  public void stop() {
+    totalNanos += System.nanoTime() - startNanos;
+  }
+
+  /**
+   * Counts the bytes of a file that was loaded, and its lines if it is a text file.
+   * Compressed and binary files have no lines.
+   *
+   * @param fileName the path of the file
+   */
+  public void addInput(String fileName) {
+    try (FileChannel channel = new FileInputStream(fileName).getChannel()) {
+      ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      files++;
+      bytes += file.limit();
+      if (AnimationFileReader.isCompressed(file)
+              || BinaryAnimationReader.isBinaryAnimation(file)) {
+        return;
+      }
+      long count = 0;
+      for (int i = 0; i < file.limit(); i++) {
+        if (file.get(i) == '\n') {
+          count++;
+        }
+      }
+      if ((file.limit() > 0) && (file.get(file.limit() - 1) != '\n')) {
+        count++;
+      }
+      lines += count;
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Could not read file " + fileName, e);
+    }
+  }
+
+  /**
+   * Records the size of the model's timeline. The timeline only grows while a file
+   * is loaded, so its size once the model is built is its peak, and the largest size
+   * given is kept.
+   *
+   * @param size number of entries in the timeline
+   */
+  public void recordTimelineSize(int size) {
+    timelineSize = Math.max(timelineSize, size);
+  }
+
+  /**
+   * Gets the number of commands of the given type, such as "move", made on the
+   * builder.
+   *
+   * @param command the keyword of the command in the file format
+   * @return number of commands made
+   * @throws IllegalArgumentException if there is no such command
+   */
+  public long getCommandCount(String command) {
+    for (int i = 0; i < COMMANDS.length; i++) {
+      if (COMMANDS[i].equals(command)) {
+        return commandCounts[i];
+      }
+    }
+    throw new IllegalArgumentException("Invalid command " + command);
+  }
+
+  /**
+   * Gets the number of commands of every type made on the builder.
+   *
+   * @return number of commands made
+   */
+  public long getCommandCount() {
+    long total = 0;
+    for (long count : commandCounts) {
+      total += count;
+    }
+    return total;
+  }
+
+  /**
+   * Gets the time between start and stop.
+   *
+   * @return time in nanoseconds
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * Gets the time spent reading and tokenizing the files: the time between start and
+   * stop that was not spent in the builder.
+   *
+   * @return time in nanoseconds
+   */
+  public long getParseNanos() {
+    return Math.max(0, totalNanos - builderNanos - finishNanos);
+  }
+
+  /**
+   * Gets the time spent in the builder's command methods, which check each command
+   * and add it to the model.
+   *
+   * @return time in nanoseconds
+   */
+  public long getBuildNanos() {
+    return builderNanos;
+  }
+
+  /**
+   * Gets the time spent in the builder's build method.
+   *
+   * @return time in nanoseconds
+   */
+  public long getFinishNanos() {
+    return finishNanos;
+  }
+
+  /**
+   * Gets the number of files given to addInput.
+   *
+   * @return number of files
+   */
+  public int getFiles() {
+    return files;
+  }
+
+  /**
+   * Gets the number of bytes in the files given to addInput.
+   *
+   * @return number of bytes
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Gets the number of lines in the text files given to addInput.
+   *
+   * @return number of lines
+   */
+  public long getLines() {
+    return lines;
+  }
+
+  /**
+   * Gets the largest timeline size recorded.
+   *
+   * @return number of entries in the timeline
+   */
+  public int getPeakTimelineSize() {
+    return timelineSize;
+  }
+
+  /**
+   * Gets the stats as a JSON object. Times are in milliseconds, and rates are per
+   * second of the whole load.
+   *
+   * @return JSON text
+   */
+  public String toJson() {
+    StringBuilder json = new StringBuilder();
+    json.append("{\n");
+    json.append("  \"files\": ").append(files).append(",\n");
+    json.append("  \"bytes\": ").append(bytes).append(",\n");
+    json.append("  \"lines\": ").append(lines).append(",\n");
+    json.append("  \"commands\": {");
+    for (int i = 0; i < COMMANDS.length; i++) {
+      json.append((i == 0) ? "" : ",").append("\n    \"").append(COMMANDS[i]).append("\": ")
+              .append(commandCounts[i]);
+    }
+    json.append("\n  },\n");
+    json.append("  \"timeMs\": {\n");
+    json.append("    \"total\": ").append(millis(totalNanos)).append(",\n");
+    json.append("    \"parse\": ").append(millis(getParseNanos())).append(",\n");
+    json.append("    \"build\": ").append(millis(builderNanos)).append(",\n");
+    json.append("    \"finish\": ").append(millis(finishNanos)).append("\n");
+    json.append("  },\n");
+    json.append("  \"bytesPerSecond\": ").append(perSecond(bytes)).append(",\n");
+    json.append("  \"linesPerSecond\": ").append(perSecond(lines)).append(",\n");
+    json.append("  \"commandsPerSecond\": ").append(perSecond(getCommandCount()))
+            .append(",\n");
+    json.append("  \"peakTimelineSize\": ").append(timelineSize).append("\n");
+    json.append("}\n");
+    return json.toString();
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+  }
+
+  private String perSecond(long count) {
+    if (totalNanos == 0) {
+      return "0";
+    }
+    return String.format(Locale.ROOT, "%.0f", count / (totalNanos / 1e9));
+  }
+
+  /**
+   * A builder that times every call to another builder and counts its commands.
+   */
+  private final class TimedBuilder<T> implements TweenModelBuilder<T> {
+    private final TweenModelBuilder<T> builder;
+
+    private TimedBuilder(TweenModelBuilder<T> builder) {
+      this.builder = builder;
+    }
+
+    @Override
+    public TweenModelBuilder<T> addOval(String name, float cx, float cy, float xRadius,
+                                        float yRadius, float red, float green, float blue,
+                                        int startOfLife, int endOfLife) {
+      long begin = System.nanoTime();
+      try {
+        builder.addOval(name, cx, cy, xRadius, yRadius, red, green, blue, startOfLife,
+                endOfLife);
+      }
+      finally {
+        timed(OVAL, begin);
+      }
+      return this;
+    }
+
+    @Override
+    public TweenModelBuilder<T> addOval(String name, String layer, float cx, float cy,
+                                        float xRadius, float yRadius, float red,
+                                        float green, float blue, int startOfLife,
+                                        int endOfLife) {
+      long begin = System.nanoTime();
+      try {
+        builder.addOval(name, layer, cx, cy, xRadius, yRadius, red, green, blue,
+                startOfLife, endOfLife);
+      }
+      finally {
+        timed(OVAL, begin);
+      }
+      return this;
+    }
+
+    @Override
+    public TweenModelBuilder<T> addRectangle(String name, float lx, float ly, float width,
+                                             float height, float red, float green,
+                                             float blue, int startOfLife, int endOfLife) {
+      long begin = System.nanoTime();
+      try {
+        builder.addRectangle(name, lx, ly, width, height, red, green, blue, startOfLife,
+                endOfLife);
+      }
+      finally {
+        timed(RECTANGLE, begin);
+      }
+      return this;
+    }
+
+    @Override
+    public TweenModelBuilder<T> addRectangle(String name, String layer, float lx, float ly,
+                                             float width, float height, float red,
+                                             float green, float blue, int startOfLife,
+                                             int endOfLife) {
+      long begin = System.nanoTime();
+      try {
+        builder.addRectangle(name, layer, lx, ly, width, height, red, green, blue,
+                startOfLife, endOfLife);
+      }
+      finally {
+        timed(RECTANGLE, begin);
+      }
+      return this;
+    }
+
+    @Override
+    public TweenModelBuilder<T> addMove(String name, float moveFromX, float moveFromY,
+                                        float moveToX, float moveToY, int startTime,
+                                        int endTime) {
+      long begin = System.nanoTime();
+      try {
+        builder.addMove(name, moveFromX, moveFromY, moveToX, moveToY, startTime, endTime);
+      }
+      finally {
+        timed(MOVE, begin);
+      }
+      return this;
+    }
+
+    @Override
+    public TweenModelBuilder<T> addColorChange(String name, float oldR, float oldG,
+                                               float oldB, float newR, float newG,
+                                               float newB, int startTime, int endTime) {
+      long begin = System.nanoTime();
+      try {
+        builder.addColorChange(name, oldR, oldG, oldB, newR, newG, newB, startTime,
+                endTime);
+      }
+      finally {
+        timed(COLOR_CHANGE, begin);
+      }
+      return this;
+    }
+
+    @Override
+    public TweenModelBuilder<T> addScaleToChange(String name, float fromSx, float fromSy,
+                                                 float toSx, float toSy, int startTime,
+                                                 int endTime) {
+      long begin = System.nanoTime();
+      try {
+        builder.addScaleToChange(name, fromSx, fromSy, toSx, toSy, startTime, endTime);
+      }
+      finally {
+        timed(SCALE_CHANGE, begin);
+      }
+      return this;
+    }
+
+    @Override
+    public TweenModelBuilder<T> addRotateChange(String name, int fromRot, int toRot,
+                                                int startTime, int endTime) {
+      long begin = System.nanoTime();
+      try {
+        builder.addRotateChange(name, fromRot, toRot, startTime, endTime);
+      }
+      finally {
+        timed(ROTATE_CHANGE, begin);
+      }
+      return this;
+    }
+
+    @Override
+    public TweenModelBuilder<T> addLayer(String name, int order) {
+      long begin = System.nanoTime();
+      try {
+        builder.addLayer(name, order);
+      }
+      finally {
+        timed(LAYER, begin);
+      }
+      return this;
+    }
+
+    @Override
+    public T build() {
+      long begin = System.nanoTime();
+      try {
+        return builder.build();
+      }
+      finally {
+        finishNanos += System.nanoTime() - begin;
+      }
+    }
+
+    private void timed(int command, long begin) {
+      builderNanos += System.nanoTime() - begin;
+      commandCounts[command]++;
+    }
+  }
+}
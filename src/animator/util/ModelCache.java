@@ -0,0 +1,212 @@
+package animator.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.InputMismatchException;
+
+/**
+ * This class keeps a directory of animation files that have already been read, in
+ * the binary format of BinaryAnimationReader, so reading the same file again skips
+ * AnimationFileReader. Entries are named by the SHA-256 hash of the file's bytes
+ * and the binary format version, so an edited file or a new format version never
+ * matches an old entry, and an entry that is not a complete binary animation is
+ * deleted and read again. The directory is kept under a size limit by deleting the
+ * least recently used entries.
+ */
+public final class ModelCache {
+  private static final String SUFFIX = ".anim";
+  private static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+  private final File directory;
+  private final long maxBytes;
+
+  /**
+   * Constructor for a cache in the given directory that holds up to 256 MB.
+   *
+   * @param directory path of the cache directory
+   */
+  public ModelCache(String directory) {
+    this(directory, DEFAULT_MAX_BYTES);
+  }
+
+  /**
+   * Constructor for a cache in the given directory, which is created if needed.
+   *
+   * @param directory path of the cache directory
+   * @param maxBytes  largest total size of the entries
+   */
+  public ModelCache(String directory, long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Invalid cache size");
+    }
+    this.directory = new File(directory);
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Read the animation file and use the builder to build a model, from the cache
+   * if the file has been read before. Otherwise the file is read, stored in the
+   * cache, and the model is built from what was stored. Problems writing to the
+   * cache do not stop the model from being built.
+   *
+   * @param fileName the path of the file to be read
+   * @param builder  the builder used to build the model
+   * @param <T>      the type of model
+   * @return the model
+   * @throws FileNotFoundException  if the specified file cannot be read
+   * @throws InputMismatchException if some data value is not of the expected
+   *                                type
+   * @throws IllegalStateException  if an illegal token is read from the file
+   */
+  public <T> T readFile(String fileName, TweenModelBuilder<T> builder) throws
+          FileNotFoundException, IllegalStateException, InputMismatchException {
+    ByteBuffer input = map(new File(fileName));
+    if (BinaryAnimationReader.isBinaryAnimation(input)) {
+      return new BinaryAnimationReader().read(input, builder);
+    }
+
+    File entry = new File(directory, hash(input) + SUFFIX);
+    if (entry.isFile()) {
+      try {
+        ByteBuffer cached = map(entry);
+        if (BinaryAnimationReader.isValid(cached)) {
+          entry.setLastModified(System.currentTimeMillis());
+          return new BinaryAnimationReader().read(cached, builder);
+        }
+      }
+      catch (FileNotFoundException e) {
+        // The entry was evicted by another process after it was found.
+      }
+      entry.delete();
+    }
+
+    ByteBuffer encoded = new AnimationFileReader().readFile(fileName,
+            new BinaryAnimationWriter());
+    store(entry, encoded.duplicate());
+    return new BinaryAnimationReader().read(encoded, builder);
+  }
+
+  /**
+   * Writes an entry to the cache and deletes the least recently used entries until
+   * the cache fits its size limit. The entry is written to a temporary file first,
+   * so a partly written entry is never read.
+   *
+   * @param entry   file of the entry
+   * @param encoded contents of the entry
+   */
+  private void store(File entry, ByteBuffer encoded) {
+    if (encoded.remaining() > maxBytes) {
+      return;
+    }
+    File temp = null;
+    try {
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+        return;
+      }
+      temp = File.createTempFile("entry", ".tmp", directory);
+      try (FileChannel channel = new FileOutputStream(temp).getChannel()) {
+        while (encoded.hasRemaining()) {
+          channel.write(encoded);
+        }
+      }
+      Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+      temp = null;
+    }
+    catch (IOException e) {
+      if (temp != null) {
+        temp.delete();
+      }
+      return;
+    }
+    evict();
+  }
+
+  /**
+   * Deletes entries, least recently used first, until the total size of the
+   * entries is within the limit.
+   */
+  private void evict() {
+    File[] entries = directory.listFiles();
+    if (entries == null) {
+      return;
+    }
+    long total = 0;
+    int count = 0;
+    for (File file : entries) {
+      if (file.getName().endsWith(SUFFIX)) {
+        entries[count++] = file;
+        total += file.length();
+      }
+    }
+    File[] cached = Arrays.copyOf(entries, count);
+    final long[] lastUsed = new long[count];
+    for (int i = 0; i < count; i++) {
+      lastUsed[i] = cached[i].lastModified();
+    }
+    Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer i1, Integer i2) {
+        return Long.compare(lastUsed[i1], lastUsed[i2]);
+      }
+    });
+    for (int i = 0; (i < count) && (total > maxBytes); i++) {
+      File oldest = cached[order[i]];
+      long length = oldest.length();
+      if (oldest.delete()) {
+        total -= length;
+      }
+    }
+  }
+
+  /**
+   * Gets the name of the entry for the given file contents: the SHA-256 hash of the
+   * contents and the binary format version, in hexadecimal.
+   *
+   * @param input contents of the file
+   * @return name of the entry
+   */
+  private static String hash(ByteBuffer input) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+    digest.update(input.duplicate());
+    StringBuilder name = new StringBuilder();
+    for (byte b : digest.digest()) {
+      name.append(Character.forDigit((b >> 4) & 0xF, 16));
+      name.append(Character.forDigit(b & 0xF, 16));
+    }
+    return name.append('-').append(BinaryAnimationReader.VERSION).toString();
+  }
+
+  private static ByteBuffer map(File file) throws FileNotFoundException {
+    try (FileChannel channel = new FileInputStream(file).getChannel()) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    catch (FileNotFoundException e) {
+      throw e;
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Could not read file " + file, e);
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package animator.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class is a builder that passes the commands of one animation file on to
+ * another builder that holds several files, so that the files do not clash. Every
+ * shape and layer name is put in the file's namespace, as "namespace/name", and
+ * every layer order is moved up by an offset so the layers of the file keep their
+ * order among themselves but are all above the layers of the files before it.
+ * Shapes that are not in a layer are put in a layer of the file's own, named
+ * "namespace/", with the order the default layer would have had.
+ *
+ * @param <T> the type of model
+ */
+final class NamespacedBuilder<T> implements TweenModelBuilder<T> {
+  private final TweenModelBuilder<T> target;
+  private final String prefix;
+  private final int layerOffset;
+  private final Map<String, String> names;
+
+  /**
+   * Constructor for a builder that passes commands on to the given builder.
+   *
+   * @param target      builder of the model holding all the files
+   * @param namespace   namespace of the file
+   * @param layerOffset amount added to each layer order of the file
+   */
+  NamespacedBuilder(TweenModelBuilder<T> target, String namespace, int layerOffset) {
+    this.target = target;
+    this.prefix = namespace + "/";
+    this.layerOffset = layerOffset;
+    names = new HashMap<>();
+  }
+
+  /**
+   * Adds the layer that shapes of the file that are not in a layer are put in.
+   */
+  void addDefaultLayer() {
+    target.addLayer(prefix, layerOffset);
+  }
+
+  @Override
+  public TweenModelBuilder<T> addOval(String name, float cx, float cy, float xRadius,
+                                      float yRadius, float red, float green, float blue,
+                                      int startOfLife, int endOfLife) {
+    target.addOval(qualify(name), prefix, cx, cy, xRadius, yRadius, red, green, blue,
+            startOfLife, endOfLife);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<T> addOval(String name, String layer, float cx, float cy,
+                                      float xRadius, float yRadius, float red, float green,
+                                      float blue, int startOfLife, int endOfLife) {
+    target.addOval(qualify(name), qualify(layer), cx, cy, xRadius, yRadius, red, green,
+            blue, startOfLife, endOfLife);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<T> addRectangle(String name, float lx, float ly, float width,
+                                           float height, float red, float green, float blue,
+                                           int startOfLife, int endOfLife) {
+    target.addRectangle(qualify(name), prefix, lx, ly, width, height, red, green, blue,
+            startOfLife, endOfLife);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<T> addRectangle(String name, String layer, float lx, float ly,
+                                           float width, float height, float red,
+                                           float green, float blue, int startOfLife,
+                                           int endOfLife) {
+    target.addRectangle(qualify(name), qualify(layer), lx, ly, width, height, red, green,
+            blue, startOfLife, endOfLife);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<T> addMove(String name, float moveFromX, float moveFromY,
+                                      float moveToX, float moveToY, int startTime,
+                                      int endTime) {
+    target.addMove(qualify(name), moveFromX, moveFromY, moveToX, moveToY, startTime,
+            endTime);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<T> addColorChange(String name, float oldR, float oldG, float oldB,
+                                             float newR, float newG, float newB,
+                                             int startTime, int endTime) {
+    target.addColorChange(qualify(name), oldR, oldG, oldB, newR, newG, newB, startTime,
+            endTime);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<T> addScaleToChange(String name, float fromSx, float fromSy,
+                                               float toSx, float toSy, int startTime,
+                                               int endTime) {
+    target.addScaleToChange(qualify(name), fromSx, fromSy, toSx, toSy, startTime, endTime);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<T> addRotateChange(String name, int fromRot, int toRot,
+                                              int startTime, int endTime) {
+    target.addRotateChange(qualify(name), fromRot, toRot, startTime, endTime);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<T> addLayer(String name, int order) {
+    target.addLayer(qualify(name), order + layerOffset);
+    return this;
+  }
+
+  /**
+   * A namespaced builder does not build a model; the builder holding all the files
+   * builds it once they have all been added.
+   *
+   * @return null
+   */
+  @Override
+  public T build() {
+    return null;
+  }
+
+  /**
+   * Puts a name in the file's namespace. Each name is only joined once.
+   */
+  private String qualify(String name) {
+    String qualified = names.get(name);
+    if (qualified == null) {
+      qualified = prefix + name;
+      names.put(name, qualified);
+    }
+    return qualified;
+  }
+}
@@ -0,0 +1,308 @@
+package animator.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class is an index of an animation file that maps each shape name to the
+ * offsets of the commands for that shape, so the commands for a few shapes can be
+ * read without reading the rest of the file. The commands that add layers are kept
+ * separately, since every shape may be in one of them. An index is built by reading
+ * the file with it as the builder, and is saved next to the file with the file's
+ * size and modification time, so an index that no longer matches its file is
+ * built again.
+ */
+final class ShapeIndex implements TweenModelBuilder<ShapeIndex> {
+  private static final int MAGIC = 0x58444941;
+  private static final int VERSION = 1;
+  private static final String SUFFIX = ".idx";
+
+  private final AnimationTokenizer positions;
+  private final Map<String, Ranges> shapes;
+  private final Ranges layers;
+  private int commandStart;
+
+  /**
+   * Constructor for an empty index that is built from the commands read from the
+   * given tokenizer. The tokenizer must hold the whole file.
+   *
+   * @param positions tokenizer the commands are read from
+   */
+  ShapeIndex(AnimationTokenizer positions) {
+    this.positions = positions;
+    shapes = new HashMap<>();
+    layers = new Ranges();
+    commandStart = positions.position();
+  }
+
+  private ShapeIndex() {
+    positions = null;
+    shapes = new HashMap<>();
+    layers = new Ranges();
+  }
+
+  /**
+   * Gets the sidecar file that the index of the given animation file is saved in.
+   *
+   * @param fileName path of the animation file
+   * @return file of the index
+   */
+  static File indexFile(String fileName) {
+    return new File(fileName + SUFFIX);
+  }
+
+  /**
+   * Reads the saved index of the given animation file.
+   *
+   * @param fileName path of the animation file
+   * @return the index, or null if there is none or it does not match the file
+   */
+  static ShapeIndex read(String fileName) {
+    File source = new File(fileName);
+    File index = indexFile(fileName);
+    if (!index.isFile()) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+            new FileInputStream(index)))) {
+      if ((in.readInt() != MAGIC) || (in.readInt() != VERSION)
+              || (in.readLong() != source.length())
+              || (in.readLong() != source.lastModified())) {
+        return null;
+      }
+      ShapeIndex result = new ShapeIndex();
+      result.layers.read(in);
+      int shapeCount = in.readInt();
+      for (int i = 0; i < shapeCount; i++) {
+        Ranges ranges = new Ranges();
+        result.shapes.put(in.readUTF(), ranges);
+        ranges.read(in);
+      }
+      return result;
+    }
+    catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Saves the index next to the given animation file. The index is written to a
+   * temporary file first, so a partly written index is never read, and an index
+   * that cannot be written is not saved.
+   *
+   * @param fileName path of the animation file
+   */
+  void write(String fileName) {
+    File source = new File(fileName);
+    File index = indexFile(fileName);
+    File temp = null;
+    try {
+      temp = File.createTempFile("index", ".tmp", index.getAbsoluteFile().getParentFile());
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+              new FileOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(source.length());
+        out.writeLong(source.lastModified());
+        layers.write(out);
+        out.writeInt(shapes.size());
+        for (Map.Entry<String, Ranges> shape : shapes.entrySet()) {
+          out.writeUTF(shape.getKey());
+          shape.getValue().write(out);
+        }
+      }
+      Files.move(temp.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING,
+              StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch (IOException e) {
+      if (temp != null) {
+        temp.delete();
+      }
+    }
+  }
+
+  /**
+   * Gets the parts of the file holding the commands for the given shapes and all
+   * the layers, in file order. Adjacent parts are joined.
+   *
+   * @param shapeNames names of the shapes
+   * @return the start and end offsets of each part, one after the other
+   * @throws IllegalArgumentException if the file has no shape with one of the names
+   */
+  int[] ranges(Collection<String> shapeNames) {
+    Ranges selected = new Ranges();
+    selected.addAll(layers);
+    for (String name : shapeNames) {
+      Ranges ranges = shapes.get(name);
+      if (ranges == null) {
+        throw new IllegalArgumentException("No shape named " + name);
+      }
+      selected.addAll(ranges);
+    }
+    return selected.sortedAndJoined();
+  }
+
+  @Override
+  public TweenModelBuilder<ShapeIndex> addOval(String name, float cx, float cy,
+                                               float xRadius, float yRadius, float red,
+                                               float green, float blue, int startOfLife,
+                                               int endOfLife) {
+    shapeCommand(name);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ShapeIndex> addOval(String name, String layer, float cx, float cy,
+                                               float xRadius, float yRadius, float red,
+                                               float green, float blue, int startOfLife,
+                                               int endOfLife) {
+    shapeCommand(name);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ShapeIndex> addRectangle(String name, float lx, float ly,
+                                                    float width, float height, float red,
+                                                    float green, float blue, int startOfLife,
+                                                    int endOfLife) {
+    shapeCommand(name);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ShapeIndex> addRectangle(String name, String layer, float lx,
+                                                    float ly, float width, float height,
+                                                    float red, float green, float blue,
+                                                    int startOfLife, int endOfLife) {
+    shapeCommand(name);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ShapeIndex> addMove(String name, float moveFromX, float moveFromY,
+                                               float moveToX, float moveToY, int startTime,
+                                               int endTime) {
+    shapeCommand(name);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ShapeIndex> addColorChange(String name, float oldR, float oldG,
+                                                      float oldB, float newR, float newG,
+                                                      float newB, int startTime,
+                                                      int endTime) {
+    shapeCommand(name);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ShapeIndex> addScaleToChange(String name, float fromSx,
+                                                        float fromSy, float toSx, float toSy,
+                                                        int startTime, int endTime) {
+    shapeCommand(name);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ShapeIndex> addRotateChange(String name, int fromRot, int toRot,
+                                                       int startTime, int endTime) {
+    shapeCommand(name);
+    return this;
+  }
+
+  @Override
+  public TweenModelBuilder<ShapeIndex> addLayer(String name, int order) {
+    int commandEnd = positions.position();
+    layers.add(commandStart, commandEnd);
+    commandStart = commandEnd;
+    return this;
+  }
+
+  @Override
+  public ShapeIndex build() {
+    return this;
+  }
+
+  /**
+   * Adds the command that was just read, which runs from the end of the previous
+   * command to the start of the next one, to the shape's offsets.
+   */
+  private void shapeCommand(String name) {
+    Ranges ranges = shapes.get(name);
+    if (ranges == null) {
+      ranges = new Ranges();
+      shapes.put(name, ranges);
+    }
+    int commandEnd = positions.position();
+    ranges.add(commandStart, commandEnd);
+    commandStart = commandEnd;
+  }
+
+  /**
+   * The start and end offsets of some commands, kept in one array.
+   */
+  private static final class Ranges {
+    private int[] offsets = new int[8];
+    private int count = 0;
+
+    void add(int start, int end) {
+      if ((count > 0) && (offsets[count - 1] == start)) {
+        offsets[count - 1] = end;
+        return;
+      }
+      if ((count + 2) > offsets.length) {
+        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+      }
+      offsets[count++] = start;
+      offsets[count++] = end;
+    }
+
+    void addAll(Ranges other) {
+      for (int i = 0; i < other.count; i += 2) {
+        add(other.offsets[i], other.offsets[i + 1]);
+      }
+    }
+
+    int[] sortedAndJoined() {
+      long[] sorted = new long[count / 2];
+      for (int i = 0; i < sorted.length; i++) {
+        sorted[i] = ((long) offsets[i * 2] << 32) | offsets[(i * 2) + 1];
+      }
+      Arrays.sort(sorted);
+      Ranges joined = new Ranges();
+      for (long range : sorted) {
+        int start = (int) (range >>> 32);
+        if ((joined.count == 0) || (start >= joined.offsets[joined.count - 1])) {
+          joined.add(start, (int) range);
+        }
+      }
+      return Arrays.copyOf(joined.offsets, joined.count);
+    }
+
+    void read(DataInputStream in) throws IOException {
+      int rangeCount = in.readInt();
+      for (int i = 0; i < rangeCount; i++) {
+        add(in.readInt(), in.readInt());
+      }
+    }
+
+    void write(DataOutputStream out) throws IOException {
+      out.writeInt(count / 2);
+      for (int i = 0; i < count; i++) {
+        out.writeInt(offsets[i]);
+      }
+    }
+  }
+}
@@ -3,20 +3,20 @@ package animator.view;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
-import java.awt.geom.Path2D;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.geom.Rectangle2D;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.awt.geom.RectangularShape;
+import java.awt.image.BufferStrategy;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
-import animator.model.IAnimations;
+import animator.model.FrameState;
 import animator.model.SimpleAnimationModel;
-import animator.model.enums.ShapeType;
 
 /**
  * This class extends the AbstractView class. It holds the methods
@@ -24,16 +24,38 @@ import animator.model.enums.ShapeType;
  * the visual and interactive views extend from this class.
  */
 public abstract class AbstractVisualView extends AbstractView {
-  private List<Float> red;
-  private List<Float> green;
-  private List<Float> blue;
-  private List<ShapeType> shapeType;
-  private List<Integer> xPosition;
-  private List<Integer> yPosition;
-  private List<List<Double>> size;
-  private List<Integer> rotation;
-  private Integer animationPeriod;
-  protected Timer timer;
+  /**
+   * Number of frames drawn each second while playing, unless the view is told
+   * otherwise.
+   */
+  public static final int DEFAULT_FRAME_RATE = 60;
+  private static final double NANOS_PER_SECOND = 1e9;
+  private static final long NANOS_PER_MILLI = 1000000;
+
+  private FrameState shownFrame;
+  private FrameState nextFrame;
+  private FrameState spareFrame;
+  private FrameState paintedFrame;
+  private final Object clockLock;
+  private final Timer clock;
+  private int frameRate;
+  private RenderMode renderMode;
+  private Thread renderThread;
+  private RenderCanvas renderCanvas;
+  private FramePacer pacer;
+  private boolean clockRunning;
+  private boolean renderRequested;
+  private long frameVersion;
+  private long renderedVersion;
+  private long framesDrawn;
+  private long droppedFrames;
+  private SimpleAnimationModel playing;
+  private int playLength;
+  private double playStartTime;
+  private long playStartNanos;
+  private double playTime;
+  private double drawnTime;
+  private double modelTime;
   protected int currTick;
   protected boolean isPaused;
 
@@ -50,8 +72,19 @@ public abstract class AbstractVisualView extends AbstractView {
    */
   public AbstractVisualView(SimpleAnimationModel animationModel, double tempo) {
     super(animationModel, tempo);
-    timer = new Timer();
-    animationPeriod = (timeline.size());// - 1) * 100;
+    clockLock = new Object();
+    frameRate = DEFAULT_FRAME_RATE;
+    renderMode = RenderMode.PASSIVE;
+    clock = new Timer(clockMillis(), new ActionListener() {
+      @Override
+      public void actionPerformed(ActionEvent e) {
+        advanceClock();
+      }
+    });
+    shownFrame = new FrameState();
+    nextFrame = new FrameState();
+    spareFrame = new FrameState();
+    paintedFrame = null;
     isLooped = false;
     isPaused = true;
     currTick = 0;
@@ -74,280 +107,514 @@ public abstract class AbstractVisualView extends AbstractView {
 
   /**
    * This method is used by both the Visual and Interactive views. It plays an
-   * animation starting from the given tick. This method schedules all the tasks required
-   * each tick to draw an animation. The method creates a task based on the timeline and
-   * the animations within the timeline.
+   * animation starting from the given tick.
    * @param startTime   starting tick
    */
   @Override
   public void startAnimation(int startTime) {
-    int scheduleTick = startTime;
-    //currTick = startTime;
-    TimerTask task;
+    play(model, startTime);
+  }
 
-    for (int i = 0; i < timeline.size(); i++) {
-      //final int FINALI = currTick;
-      final int FINALI = scheduleTick;
-      List<IAnimations> animationTime = timeline.get(FINALI);
+  /**
+   * This method sets how many frames are drawn each second while an animation plays.
+   * Each frame is evaluated at the exact time the animation has reached, partway
+   * between ticks, so motion is smooth however slow the tempo is, and no more than
+   * this many frames are drawn however fast it is. A frame rate of 0 draws each tick
+   * once instead.
+   * @param framesPerSecond   frames per second, or 0 to draw once per tick
+   */
+  public void setFrameRate(int framesPerSecond) {
+    if (framesPerSecond < 0) {
+      throw new IllegalArgumentException("The frame rate cannot be below 0");
+    }
+    synchronized (clockLock) {
+      frameRate = framesPerSecond;
+      retime();
+    }
+  }
 
-      task = new TimerTask() {
+  /**
+   * This method sets how frames are put on the screen. In passive mode, which is the
+   * default, a Swing timer evaluates each frame and asks Swing to repaint the view,
+   * and Swing paints it when it gets to it. In active mode, a canvas is laid over the
+   * view and a render thread of the view's own evaluates each frame when it is due,
+   * draws it into the canvas's back buffer and shows it straight away, counting the
+   * frames it was too late to draw. If the canvas cannot be drawn on, the view goes
+   * back to passive mode, which can be seen with getRenderMode.
+   * @param mode  the render mode
+   */
+  public void setRenderMode(RenderMode mode) {
+    if (mode == RenderMode.ACTIVE) {
+      startRendering();
+    }
+    else {
+      stopRendering();
+    }
+  }
+
+  /**
+   * Gets how frames are put on the screen. This is passive if active mode was asked
+   * for but the view had to go back to passive mode.
+   * @return  the render mode
+   */
+  public RenderMode getRenderMode() {
+    synchronized (clockLock) {
+      return renderMode;
+    }
+  }
+
+  /**
+   * This method lays the canvas over the view and starts the render thread.
+   */
+  private void startRendering() {
+    synchronized (clockLock) {
+      if (renderMode == RenderMode.ACTIVE) {
+        return;
+      }
+    }
+    RenderCanvas canvas = new RenderCanvas();
+    drawingPanel.add(canvas, BorderLayout.CENTER);
+    drawingPanel.revalidate();
+    synchronized (clockLock) {
+      boolean running = isClockRunning();
+      stopClock();
+      renderMode = RenderMode.ACTIVE;
+      renderCanvas = canvas;
+      renderRequested = true;
+      renderThread = new Thread(new Runnable() {
         @Override
         public void run() {
-          initializeParams();
-          addShapeParamsAtTimeT(animationTime, FINALI, timeline);
-          drawingPanel.repaint();
-          currTick = (currTick + 1) % timeline.size();
+          renderLoop();
         }
-      };
-      scheduleTimerTasks(task, i);
-      scheduleTick = (scheduleTick + 1) % timeline.size();
-      //currTick = (currTick + 1) % timeline.size();
-      if ((!isLooped) & (scheduleTick == 0) & (startTime != 0)) {
-        break;
+      }, "animation-render");
+      renderThread.setDaemon(true);
+      renderThread.start();
+      if (running) {
+        play(playing, playTime);
       }
     }
   }
 
   /**
-   * This method initializes the param lists that will be used to
-   * draw shapes.
+   * This method stops the render thread, waits for it to finish the frame it is
+   * drawing, and takes the canvas off the view, so Swing paints the frames again.
    */
-  protected void initializeParams() {
-    red = new ArrayList<>();
-    green = new ArrayList<>();
-    blue = new ArrayList<>();
-    shapeType = new ArrayList<>();
-    xPosition = new ArrayList<>();
-    yPosition = new ArrayList<>();
-    size = new ArrayList<>();
-    rotation = new ArrayList<>();
+  private void stopRendering() {
+    Thread finished;
+    boolean running;
+    synchronized (clockLock) {
+      if (renderMode == RenderMode.PASSIVE) {
+        return;
+      }
+      running = isClockRunning();
+      stopClock();
+      finished = renderThread;
+      renderThread = null;
+      clockLock.notifyAll();
+    }
+    if ((finished != null) && (finished != Thread.currentThread())) {
+      try {
+        finished.join();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    RenderCanvas canvas;
+    synchronized (clockLock) {
+      renderMode = RenderMode.PASSIVE;
+      canvas = renderCanvas;
+      renderCanvas = null;
+      if (running) {
+        play(playing, playTime);
+      }
+    }
+    if (canvas != null) {
+      drawingPanel.remove(canvas);
+      drawingPanel.revalidate();
+    }
+    drawingPanel.repaint();
   }
 
   /**
-   * This method creates a shape in the window using the Graphics class.
-   *
-   * @param g graphics
-   */
-  private void drawShape(Graphics g, int index) {
-    Graphics2D g2d = (Graphics2D) g;
-    g2d.setColor(new Color(red.get(index), green.get(index), blue.get(index)));
-    AffineTransform oldTransform = g2d.getTransform();
-    AffineTransform newTransform = g2d.getTransform();
-
-    switch (shapeType.get(index)) {
-      case RECTANGLE:
-        Rectangle2D rect = new Rectangle2D.Double(xPosition.get(index), yPosition.get(index),
-                size.get(index).get(0).intValue(), size.get(index).get(1).intValue());
-        newTransform.rotate(Math.toRadians(rotation.get(index)),rect.getCenterX(),
-                + rect.getCenterY());
-        g2d.setTransform(newTransform);
-        g2d.fill(rect);
-        break;
-      case OVAL:
-        Ellipse2D oval = new Ellipse2D.Double(xPosition.get(index), yPosition.get(index),
-                (size.get(index).get(0).intValue() * 2), (size.get(index).get(1).intValue() * 2));
-        newTransform.rotate(Math.toRadians(rotation.get(index)), oval.getCenterX(),
-                oval.getCenterY());
-        g2d.setTransform(newTransform);
-        g2d.fill(oval);
-        break;
-      case SQUARE:
-        Rectangle2D square = new Rectangle2D.Double(xPosition.get(index), yPosition.get(index),
-                size.get(index).get(0).intValue(), size.get(index).get(0).intValue());
-        newTransform.rotate(Math.toRadians(rotation.get(index)), square.getCenterX(),
-                square.getCenterY());
-        g2d.setTransform(newTransform);
-        g2d.fill(square);
-        break;
-      case CIRCLE:
-        Ellipse2D circle = new Ellipse2D.Double(xPosition.get(index), yPosition.get(index),
-                (size.get(index).get(0).intValue() * 2), (size.get(index).get(0).intValue() * 2));
-        newTransform.rotate(Math.toRadians(rotation.get(index)), circle.getCenterX(),
-                circle.getCenterY());
-        g2d.setTransform(newTransform);
-        g2d.fill(circle);
-        break;
-      default:
-        throw new IllegalArgumentException("Invalid shape type");
-    }
-    g2d.setTransform(oldTransform);
-  }
-
-  /**
-   * This assigns values that will be drawn corresponding to a given animation at a given time.
-   *
-   * @param animation animation to draw
-   * @param time      time of draw
-   */
-  private void singleAnimationChange(IAnimations animation, int time) {
-    switch (animation.getAnimateType()) {
-      case MOVE:
-        xPosition.add(calcTweening(animation.getPosition1().getX(),
-                animation.getPosition2().getX(), animation.getTime1(), animation.getTime2(),
-                time).intValue());
-        yPosition.add(calcTweening(animation.getPosition1().getY(),
-                animation.getPosition2().getY(), animation.getTime1(), animation.getTime2(),
-                time).intValue());
-        break;
-      case CHANGESIZE:
-        java.util.List<Double> newSize = new ArrayList<>();
-        for (int i = 0; i < animation.getSizeParams1().size(); i++) {
-          newSize.add(calcTweening(animation.getSizeParams1().get(i),
-                  animation.getSizeParams2().get(i), animation.getTime1(), animation.getTime2(),
-                  time));
-        }
-        size.add(newSize);
-        break;
-      case CHANGECOLOR:
-        red.add(calcTweening(animation.getColor1().getRed(), animation.getColor2().getRed(),
-                animation.getTime1(), animation.getTime2(), time).floatValue());
-        green.add(calcTweening(animation.getColor1().getGreen(),
-                animation.getColor2().getGreen(), animation.getTime1(), animation.getTime2(),
-                time).floatValue());
-        blue.add(calcTweening(animation.getColor1().getBlue(),
-                animation.getColor2().getBlue(), animation.getTime1(), animation.getTime2(),
-                time).floatValue());
-        break;
-      case ROTATE:
-        rotation.add(calcTweening(animation.getRotation1().doubleValue(), animation.getRotation2()
-                .doubleValue(), animation.getTime1(), animation.getTime2(), time).intValue());
-        break;
-      case APPEAR:
-        break;
-      case DISAPPEAR:
-        break;
-      case STILL:
-        addStillShape(animation);
-        break;
-      default:
-        throw new IllegalArgumentException("Invalid animation type");
-    }
-  }
-
-  /**
-   * This method assigns values that will be drawn that correspond to when a shape first appears
-   * or when a shape is staying still at the given time.
-   *
-   * @param animation animation to draw
+   * This method goes back to passive mode once the render thread cannot draw. It is
+   * called off the event dispatch thread, so the change is made on it.
+   */
+  private void fallBackToPassive() {
+    SwingUtilities.invokeLater(new Runnable() {
+      @Override
+      public void run() {
+        stopRendering();
+      }
+    });
+  }
+
+  /**
+   * Gets the number of frames drawn in active mode.
+   * @return  number of frames
    */
-  private void addStillShape(IAnimations animation) {
-    red.add(animation.getColor1().getRed().floatValue());
-    green.add(animation.getColor1().getGreen().floatValue());
-    blue.add(animation.getColor1().getBlue().floatValue());
-    xPosition.add(animation.getPosition1().getX().intValue());
-    yPosition.add(animation.getPosition1().getY().intValue());
-    size.add(animation.getSizeParams1());
-    rotation.add(animation.getRotation1());
+  public long getFramesDrawn() {
+    synchronized (clockLock) {
+      return framesDrawn;
+    }
   }
 
   /**
-   * This method calculates the tweening value of an animation at a given time.
-   * This method is used for move, change color, and change size animations.
-   *
-   * @param initVal   initial value
-   * @param finalVal  final value
-   * @param initTick  time of initial value
-   * @param finalTick time of final value
-   * @param tick  current time
-   * @return value at current time
-   */
-  private Double calcTweening(Double initVal, Double finalVal, Integer initTick,
-                              Integer finalTick, Integer tick) {
-    Integer t1 = (finalTick - tick);
-    Integer t2 = (tick - initTick);
-    Integer t3 = (finalTick - initTick);
-    Double v1 = t1.doubleValue() / t3.doubleValue();
-    Double v2 = t2.doubleValue() / t3.doubleValue();
-    return (initVal * v1) + (finalVal * v2);
-  }
-
-  /**
-   * This method also adds the animation's shapes into the shape params lists
-   * but it adds the shapes that are specified in the subset model. Only the
-   * shapes that appear at the given time are added.
-   * @param animationTime   list of animations at time T
-   * @param timelineIndex   time T
-   * @param animationsAtT  subset's timeline
-   */
-  protected void addShapeParamsAtTimeT(List<IAnimations> animationTime, int timelineIndex,
-                                       List<List<IAnimations>> animationsAtT) {
-    for (int j = 0; j < animationsAtT.get(timelineIndex).size(); j++) {
-      String nextShape = "";
-
-      shapeType.add(animationTime.get(j).getChangedShape().getShapeType());
-      singleAnimationChange(animationTime.get(j), timelineIndex);
-
-      if ((j + 1) < animationTime.size()) {
-        nextShape = animationTime.get(j + 1).getChangedShape().getShapeName();
-      }
-
-      while (nextShape.equals(animationTime.get(j).getChangedShape().getShapeName())) {
-        singleAnimationChange(animationTime.get(j + 1), timelineIndex);
-        j++;
-        if ((j + 1) < animationTime.size()) {
-          nextShape = animationTime.get(j + 1).getChangedShape().getShapeName();
-        } else {
-          nextShape = "";
+   * Gets the number of frames that were not drawn in active mode because the frame
+   * before them was drawn too late.
+   * @return  number of frames
+   */
+  public long getDroppedFrames() {
+    synchronized (clockLock) {
+      return droppedFrames;
+    }
+  }
+
+  /**
+   * This method plays the given model from the given time on a single frame clock.
+   * When the clock fires, the time to draw is worked out from the time since playing
+   * started and the tempo, so starting takes the same time however long the
+   * animation is, and a late frame does not slow the animation down. Unless the
+   * animation is looped, it stops at its last tick.
+   * @param animationModel  model or subset model to play
+   * @param startTime       starting time, in ticks
+   */
+  protected void play(SimpleAnimationModel animationModel, double startTime) {
+    synchronized (clockLock) {
+      playing = animationModel;
+      playLength = (animationModel == model) ? timeline.size()
+              : animationModel.getTimeline().size();
+      playStartTime = startTime;
+      playStartNanos = System.nanoTime();
+      playTime = startTime;
+      drawnTime = Double.NaN;
+      if (renderMode == RenderMode.ACTIVE) {
+        pacer = new FramePacer(playStartNanos, clockMillis() * NANOS_PER_MILLI);
+        clockRunning = true;
+        clockLock.notifyAll();
+      }
+      else {
+        clock.setDelay(clockMillis());
+        clock.setInitialDelay(0);
+        clock.restart();
+      }
+    }
+  }
+
+  /**
+   * This method makes a change to a model while no frame is being evaluated. A model
+   * being played is evaluated by the render thread in active mode, so a model that
+   * may be playing, such as the subset model, is only changed through this method.
+   * @param change  the change to make
+   */
+  protected void changeModel(Runnable change) {
+    synchronized (clockLock) {
+      change.run();
+    }
+  }
+
+  /**
+   * This method stops the frame clock, leaving the last frame drawn on the screen.
+   */
+  protected void stopAnimation() {
+    synchronized (clockLock) {
+      stopClock();
+    }
+  }
+
+  /**
+   * This method restarts the frame clock from the time it is at, so a new tempo or
+   * frame rate takes effect from there. It does nothing if the clock is stopped.
+   */
+  protected void retime() {
+    synchronized (clockLock) {
+      if (isClockRunning()) {
+        play(playing, playTime);
+      }
+    }
+  }
+
+  private boolean isClockRunning() {
+    return clockRunning || clock.isRunning();
+  }
+
+  /**
+   * This method stops whichever clock is running.
+   */
+  private void stopClock() {
+    clock.stop();
+    clockRunning = false;
+  }
+
+  /**
+   * This method is called each time the frame clock fires. It draws the time the
+   * animation has reached, if it has not been drawn yet. When drawing once per tick,
+   * the time is rounded down to the tick.
+   */
+  private void advanceClock() {
+    synchronized (clockLock) {
+      if (playLength <= 0) {
+        stopClock();
+        return;
+      }
+      long elapsed = Math.max(0, System.nanoTime() - playStartNanos);
+      double time = playStartTime + ((elapsed / NANOS_PER_SECOND) * Math.max(tempo, 0));
+      if (frameRate == 0) {
+        time = Math.floor(time);
+      }
+      boolean finished = false;
+      if (isLooped) {
+        time %= playLength;
+      }
+      else if (time >= (playLength - 1)) {
+        time = playLength - 1;
+        finished = true;
+      }
+      playTime = time;
+      if (time != drawnTime) {
+        drawnTime = time;
+        publish(playing.evaluateAt(time, nextFrame));
+        if (playing == model) {
+          modelTime = time;
+          currTick = ((int) time + 1) % playLength;
         }
+        if (renderMode == RenderMode.PASSIVE) {
+          drawingPanel.repaint();
+        }
+      }
+      if (finished) {
+        stopClock();
       }
-      addRemainingShapeParams(animationTime.get(j));
     }
   }
 
   /**
-   * This method is used in the addShapeParamsAtTimeT. It adds the remaining shape
-   * params into the lists that are not changed in the animation.
-   * @param animation   animation being added
+   * Gets the time between frames, which is how often the frame clock fires: the
+   * frame rate's period, or the time between ticks at the current tempo when
+   * drawing once per tick.
+   * @return  milliseconds per frame
+   */
+  private int clockMillis() {
+    double framesPerSecond = (frameRate > 0) ? frameRate : tempo;
+    return (int) Math.max(1, Math.min(1000, Math.round(1000 / framesPerSecond)));
+  }
+
+  /**
+   * This method is run by the render thread in active mode. The thread waits for a
+   * frame to draw, takes it, and draws it onto the canvas. The clock lock is only
+   * held to hand the frame over, so the frame is drawn without it and Swing is never
+   * kept waiting while it is. If a frame cannot be evaluated or the canvas cannot
+   * be drawn on, the view goes back to passive mode.
    */
-  private void addRemainingShapeParams(IAnimations animation) {
-    int shapeCount = shapeType.size();
-    if (red.size() < shapeCount) {
-      red.add(animation.getColor1().getRed().floatValue());
+  private void renderLoop() {
+    Thread self = Thread.currentThread();
+    while (true) {
+      FrameState painting;
+      RenderCanvas canvas;
+      synchronized (clockLock) {
+        try {
+          if (!awaitFrame(self)) {
+            return;
+          }
+        }
+        catch (InterruptedException e) {
+          return;
+        }
+        catch (RuntimeException e) {
+          stopClock();
+          abandonRendering(self);
+          return;
+        }
+        canvas = renderCanvas;
+        painting = takeShownFrame();
+      }
+      boolean drawn = false;
+      try {
+        drawn = canvas.draw(painting);
+      }
+      catch (RuntimeException e) {
+        synchronized (clockLock) {
+          abandonRendering(self);
+        }
+      }
+      finally {
+        synchronized (clockLock) {
+          returnPaintedFrame();
+          if (drawn) {
+            framesDrawn++;
+          }
+        }
+      }
     }
-    if (green.size() < shapeCount) {
-      green.add(animation.getColor1().getGreen().floatValue());
+  }
+
+  /**
+   * This method stops the render thread once it cannot evaluate or draw a frame,
+   * and goes back to passive mode. This is called with the clock lock held.
+   * @param self  the render thread
+   */
+  private void abandonRendering(Thread self) {
+    if (renderThread == self) {
+      renderThread = null;
+      fallBackToPassive();
     }
-    if (blue.size() < shapeCount) {
-      blue.add(animation.getColor1().getBlue().floatValue());
+  }
+
+  /**
+   * This method waits until there is a frame for the render thread to draw. While
+   * the clock is running, each frame is due a whole number of frame periods after
+   * playing started, and the latest frame that is due is evaluated, so a frame that
+   * is drawn late makes the thread skip the frames it missed rather than fall
+   * behind. While the clock is stopped, only frames that are evaluated for the
+   * thread, such as when scrubbing, or that the canvas asks for are drawn. This is
+   * called with the clock lock held.
+   * @param self  the render thread
+   * @return  true if there is a frame to draw, or false if the thread should stop
+   * @throws InterruptedException   if the thread is interrupted while waiting
+   */
+  private boolean awaitFrame(Thread self) throws InterruptedException {
+    while (renderThread == self) {
+      long now = System.nanoTime();
+      if (clockRunning) {
+        long dropped = pacer.advance(now);
+        if (dropped >= 0) {
+          droppedFrames += dropped;
+          advanceClock();
+        }
+      }
+      if ((paintedFrame == null)
+              && (renderRequested || (renderedVersion != frameVersion))) {
+        renderRequested = false;
+        renderedVersion = frameVersion;
+        return true;
+      }
+      if (clockRunning) {
+        long wait = pacer.nanosUntilNextFrame(now);
+        if (wait > 0) {
+          clockLock.wait(wait / NANOS_PER_MILLI, (int) (wait % NANOS_PER_MILLI));
+        }
+      }
+      else {
+        clockLock.wait();
+      }
     }
-    if (xPosition.size() < shapeCount) {
-      xPosition.add(animation.getPosition1().getX().intValue());
+    return false;
+  }
+
+  /**
+   * This method asks the render thread to draw the shown frame again, such as when
+   * the canvas has been uncovered.
+   */
+  private void requestRender() {
+    synchronized (clockLock) {
+      renderRequested = true;
+      clockLock.notifyAll();
     }
-    if (yPosition.size() < shapeCount) {
-      yPosition.add(animation.getPosition1().getY().intValue());
+  }
+
+  /**
+   * This method stops the frame clock and shows the model at the time it was
+   * stopped at, which may be partway between ticks, so the frame shown does not
+   * change when the animation is paused.
+   */
+  protected void pauseModel() {
+    synchronized (clockLock) {
+      stopClock();
+      publish(model.evaluateAt(modelTime, nextFrame));
     }
-    if (size.size() < shapeCount) {
-      size.add(animation.getSizeParams1());
+  }
+
+  /**
+   * This method plays the model from the time it was paused at. If the model had
+   * played to its last tick without looping, it is played from the beginning.
+   */
+  protected void resumeModel() {
+    synchronized (clockLock) {
+      int length = timeline.size();
+      if (!isLooped && (modelTime >= (length - 1))) {
+        modelTime = 0;
+      }
+      play(model, modelTime);
     }
-    if (rotation.size() < shapeCount) {
-      rotation.add(animation.getRotation1());
+  }
+
+  /**
+   * This method stops the frame clock and shows the model at the given tick.
+   * Playing resumes from the tick after it.
+   * @param tick  tick to show
+   */
+  protected void showTick(int tick) {
+    synchronized (clockLock) {
+      stopClock();
+      publish(model.evaluate(tick, nextFrame));
+      currTick = (tick + 1) % timeline.size();
+      modelTime = currTick;
     }
   }
 
   /**
-   * This method schedules painting tasks depending on if the animation
-   * is looped or not.
-   * @param task  task to schedule
-   * @param time  time to schedule to
+   * This method makes the given frame the one that is shown. There are three frames:
+   * the one shown, the one the next tick is evaluated into, and a spare. A painter
+   * takes the shown frame with takeShownFrame and gives it back with
+   * returnPaintedFrame once it has drawn it. The frame that stops being shown is
+   * reused for the next tick, unless it is still being painted, in which case the
+   * spare is used and the painted frame becomes the spare when it is given back.
+   * So a frame is never evaluated into while it is being painted. This is called
+   * with the clock lock held. In active mode the render thread is told there is a
+   * new frame to draw.
+   * @param filled  frame that has been evaluated
    */
-  protected void scheduleTimerTasks(TimerTask task, int time) {
-    if (isLooped) {
-      timer.scheduleAtFixedRate(task, (long) ((time / tempo) * 1000),
-              (long) (animationPeriod / tempo) * 1000);
+  private void publish(FrameState filled) {
+    FrameState previous = shownFrame;
+    shownFrame = filled;
+    if (previous == paintedFrame) {
+      nextFrame = spareFrame;
+      spareFrame = null;
     }
     else {
-      timer.schedule(task, (long) ((time / tempo) * 1000));
+      nextFrame = previous;
+    }
+    frameVersion++;
+    if (renderMode == RenderMode.ACTIVE) {
+      clockLock.notifyAll();
     }
   }
 
+  /**
+   * This method takes the shown frame to paint it. The frame is not evaluated into
+   * until it is given back with returnPaintedFrame. This is called with the clock
+   * lock held.
+   * @return  the shown frame
+   */
+  private FrameState takeShownFrame() {
+    paintedFrame = shownFrame;
+    return paintedFrame;
+  }
+
+  /**
+   * This method gives back the frame taken by takeShownFrame once it has been
+   * painted. If it is no longer shown, it becomes the spare frame. This is called
+   * with the clock lock held, and wakes a render thread waiting to take a frame.
+   */
+  private void returnPaintedFrame() {
+    if (paintedFrame != shownFrame) {
+      spareFrame = paintedFrame;
+    }
+    paintedFrame = null;
+    clockLock.notifyAll();
+  }
+
   /**
    * This class represents a panel that can be drawn on to create shapes
    * at each tick. In this class the paintComponent method is overrode
    * in order to paint all shapes at each tick.
    */
   protected class DrawingPane extends JPanel {
+    private final ShapePainter painter;
+
     private DrawingPane() {
       setLayout(new BorderLayout());
+      painter = new ShapePainter();
     }
 
     @Override
@@ -355,14 +622,276 @@ public abstract class AbstractVisualView extends AbstractView {
       return new Dimension(1000, 1000);
     }
 
+    /**
+     * This method paints the shown frame in passive mode. The frame is taken under
+     * the clock lock and painted without it. In active mode the canvas covers the
+     * panel, so nothing is painted.
+     * @param g   graphics
+     */
     @Override
     protected void paintComponent(Graphics g) {
       super.paintComponent(g);
-      if (shapeType != null) {
-        for (int i = 0; i < shapeType.size(); i++) {
-          drawShape(g, i);
+      FrameState painting;
+      synchronized (clockLock) {
+        if (renderMode != RenderMode.PASSIVE) {
+          return;
+        }
+        if (paintedFrame != null) {
+          repaint();
+          return;
+        }
+        painting = takeShownFrame();
+      }
+      try {
+        painter.drawFrame((Graphics2D) g, painting);
+      }
+      finally {
+        synchronized (clockLock) {
+          returnPaintedFrame();
         }
       }
     }
   }
+
+  /**
+   * This class represents the canvas the render thread draws on in active mode. It
+   * has two buffers: each frame is drawn into the back buffer, which is then shown.
+   * The buffers are made when the canvas is put on the screen. When AWT asks the
+   * canvas to paint, such as when it is uncovered, it asks the render thread to draw
+   * the shown frame again instead.
+   */
+  private final class RenderCanvas extends Canvas {
+    private static final long serialVersionUID = 1L;
+
+    private final ShapePainter painter;
+
+    private RenderCanvas() {
+      painter = new ShapePainter();
+      setBackground(drawingPanel.getBackground());
+      setIgnoreRepaint(true);
+    }
+
+    @Override
+    public void addNotify() {
+      super.addNotify();
+      try {
+        createBufferStrategy(2);
+      }
+      catch (RuntimeException e) {
+        fallBackToPassive();
+        return;
+      }
+      requestRender();
+    }
+
+    @Override
+    public void paint(Graphics g) {
+      requestRender();
+    }
+
+    @Override
+    public void update(Graphics g) {
+      requestRender();
+    }
+
+    /**
+     * This method draws a frame into the back buffer and shows it. The buffers may
+     * be lost at any time, so the frame is drawn again if they are lost while it is
+     * being drawn. Nothing is drawn until the canvas is on the screen. This is called
+     * by the render thread without the clock lock held.
+     * @param frameState  frame to draw
+     * @return  true if the frame was shown, or false if the canvas is not on the screen
+     */
+    private boolean draw(FrameState frameState) {
+      BufferStrategy strategy = getBufferStrategy();
+      int width = getWidth();
+      int height = getHeight();
+      if ((strategy == null) || (width <= 0) || (height <= 0)) {
+        return false;
+      }
+      do {
+        do {
+          Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+          try {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, width, height);
+            painter.drawFrame(g, frameState);
+          }
+          finally {
+            g.dispose();
+          }
+        }
+        while (strategy.contentsRestored());
+        strategy.show();
+      }
+      while (strategy.contentsLost());
+      Toolkit.getDefaultToolkit().sync();
+      return true;
+    }
+  }
+
+  /**
+   * This class draws the shapes of a frame. The shapes' geometry and colors are
+   * reused from shape to shape, so each thread that draws frames has a painter of
+   * its own.
+   */
+  private static final class ShapePainter {
+    private final Rectangle2D.Double rect;
+    private final Ellipse2D.Double oval;
+    private final ColorCache colors;
+    private AffineTransform paintTransform;
+
+    private ShapePainter() {
+      rect = new Rectangle2D.Double();
+      oval = new Ellipse2D.Double();
+      colors = new ColorCache();
+    }
+
+    /**
+     * This method draws every shape of a frame.
+     * @param g           graphics
+     * @param frameState  frame to draw
+     */
+    void drawFrame(Graphics2D g, FrameState frameState) {
+      paintTransform = null;
+      for (int i = 0; i < frameState.getCount(); i++) {
+        drawShape(g, frameState, i);
+      }
+    }
+
+    /**
+     * This method creates a shape in the window using the Graphics class. The shape's
+     * geometry and color are reused from frame to frame, and the graphics are only
+     * rotated for shapes that are rotated, so drawing a frame does not allocate.
+     *
+     * @param g           graphics
+     * @param frameState  frame being painted
+     * @param index       index of shape in the frame
+     */
+    private void drawShape(Graphics2D g, FrameState frameState, int index) {
+      g.setColor(colors.get(frameState.getRed(index), frameState.getGreen(index),
+              frameState.getBlue(index)));
+      int x = (int) frameState.getX(index);
+      int y = (int) frameState.getY(index);
+      int width = (int) frameState.getWidth(index);
+      int height = (int) frameState.getHeight(index);
+      RectangularShape shape;
+
+      switch (frameState.getType(index)) {
+        case RECTANGLE:
+          rect.setRect(x, y, width, height);
+          shape = rect;
+          break;
+        case OVAL:
+          oval.setFrame(x, y, (width * 2), (height * 2));
+          shape = oval;
+          break;
+        case SQUARE:
+          rect.setRect(x, y, width, width);
+          shape = rect;
+          break;
+        case CIRCLE:
+          oval.setFrame(x, y, (width * 2), (width * 2));
+          shape = oval;
+          break;
+        default:
+          throw new IllegalArgumentException("Invalid shape type");
+      }
+      int degrees = (int) frameState.getRotation(index);
+      if (degrees == 0) {
+        g.fill(shape);
+        return;
+      }
+      if (paintTransform == null) {
+        paintTransform = g.getTransform();
+      }
+      g.rotate(Math.toRadians(degrees), shape.getCenterX(), shape.getCenterY());
+      g.fill(shape);
+      g.setTransform(paintTransform);
+    }
+  }
+
+
+  /**
+   * This class holds the Colors the shapes are drawn in, so each color is only
+   * created once. Colors are looked up by their 8-bit red, green and blue values,
+   * which are what a Color made from the same float values would hold.
+   */
+  private static final class ColorCache {
+    private static final int MAX_COLORS = 1 << 12;
+
+    private int[] keys;
+    private Color[] colors;
+    private int count;
+
+    private ColorCache() {
+      keys = new int[64];
+      colors = new Color[64];
+      count = 0;
+    }
+
+    /**
+     * Gets the color with the given components.
+     * @param red     red, from 0 to 1
+     * @param green   green, from 0 to 1
+     * @param blue    blue, from 0 to 1
+     * @return  the color
+     * @throws IllegalArgumentException   if a component is not from 0 to 1
+     */
+    Color get(double red, double green, double blue) {
+      int rgb = (component(red) << 16) | (component(green) << 8) | component(blue);
+      int mask = keys.length - 1;
+      int slot = (rgb * 0x9E3779B9 >>> 16) & mask;
+      while (colors[slot] != null) {
+        if (keys[slot] == rgb) {
+          return colors[slot];
+        }
+        slot = (slot + 1) & mask;
+      }
+      Color color = new Color(rgb);
+      if (count >= MAX_COLORS) {
+        return color;
+      }
+      keys[slot] = rgb;
+      colors[slot] = color;
+      count++;
+      if ((count * 2) > keys.length) {
+        grow();
+      }
+      return color;
+    }
+
+    private void grow() {
+      int[] oldKeys = keys;
+      Color[] oldColors = colors;
+      keys = new int[oldKeys.length * 2];
+      colors = new Color[oldColors.length * 2];
+      int mask = keys.length - 1;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldColors[i] != null) {
+          int slot = (oldKeys[i] * 0x9E3779B9 >>> 16) & mask;
+          while (colors[slot] != null) {
+            slot = (slot + 1) & mask;
+          }
+          keys[slot] = oldKeys[i];
+          colors[slot] = oldColors[i];
+        }
+      }
+    }
+
+    private static int component(double value) {
+      float f = (float) value;
+      if ((f < 0.0f) || (f > 1.0f)) {
+        throw new IllegalArgumentException("Color parameter outside of expected range");
+      }
+      return (int) ((f * 255) + 0.5);
+    }
+  }
+
+  /**
+   * An enumeration of the ways frames can be put on the screen.
+   */
+  public enum RenderMode {
+    PASSIVE, ACTIVE
+  }
 }
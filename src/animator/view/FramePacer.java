@@ -0,0 +1,68 @@
+package animator.view;
+
+/**
+ * This class works out when the frames of a playing animation are due. Frame n is
+ * due n frame periods after playing started. When asked at a given time, the pacer
+ * moves on to the latest frame that is due and counts the frames it skipped to get
+ * there, so a frame that is drawn late makes the frames it missed be dropped rather
+ * than the animation fall behind. Times are in nanoseconds and are passed in, so the
+ * pacer does not read a clock itself.
+ */
+final class FramePacer {
+  private final long startNanos;
+  private final long periodNanos;
+  private long frameIndex;
+
+  /**
+   * Constructor for a frame pacer.
+   *
+   * @param startNanos    time playing started
+   * @param periodNanos   time between frames
+   * @throws IllegalArgumentException   if the period is not above 0
+   */
+  FramePacer(long startNanos, long periodNanos) {
+    if (periodNanos <= 0) {
+      throw new IllegalArgumentException("The frame period must be above 0");
+    }
+    this.startNanos = startNanos;
+    this.periodNanos = periodNanos;
+    this.frameIndex = -1;
+  }
+
+  /**
+   * This method moves on to the latest frame that is due at the given time. The
+   * first frame is never counted as dropped.
+   *
+   * @param nowNanos  current time
+   * @return the number of frames skipped since the last frame, or -1 if no new frame
+   *         is due yet
+   */
+  long advance(long nowNanos) {
+    long due = Math.max(0, nowNanos - startNanos) / periodNanos;
+    if (due <= frameIndex) {
+      return -1;
+    }
+    long dropped = (frameIndex >= 0) ? (due - frameIndex - 1) : 0;
+    frameIndex = due;
+    return dropped;
+  }
+
+  /**
+   * Gets the time left until the frame after the current one is due.
+   *
+   * @param nowNanos  current time
+   * @return nanoseconds until the next frame, or 0 if it is already due
+   */
+  long nanosUntilNextFrame(long nowNanos) {
+    return Math.max(0, (startNanos + ((frameIndex + 1) * periodNanos)) - nowNanos);
+  }
+
+  /**
+   * Gets the index of the last frame that was due.
+   *
+   * @return the frame index, or -1 if no frame has been due yet
+   */
+  long getFrameIndex() {
+    return frameIndex;
+  }
+}
@@ -4,16 +4,12 @@ import java.awt.BorderLayout;
 import java.awt.FlowLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
 
 import javax.swing.*;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
 import animator.controller.IController;
-import animator.model.IAnimations;
 import animator.model.SimpleAnimationModel;
 import animator.model.enums.AnimateTypes;
 
@@ -145,10 +141,8 @@ public class InteractiveView extends AbstractVisualView {
    */
   public void togglePlayOrPause() {
     isPaused = !isPaused;
-    timer.cancel();
-    timer = new Timer();
     if (!isPaused) {
-      startAnimation(currTick);
+      resumeModel();
       start.setText("Pause");
     }
     else {
@@ -168,11 +162,7 @@ public class InteractiveView extends AbstractVisualView {
   public void updateTempo(double newTempo) {
     tempo = newTempo;
     tempoDisplay.setText("Tempo: \n" + tempo);
-    timer.cancel();
-    timer = new Timer();
-    if (!isPaused & (!isLooped & (currTick == timeline.size() - 1))) {
-      startAnimation(currTick);
-    }
+    retime();
   }
 
   /**
@@ -182,10 +172,8 @@ public class InteractiveView extends AbstractVisualView {
   @Override
   public void loopAnimation() {
     isLooped = !isLooped;
-    timer.cancel();
-    timer = new Timer();
     if (!isPaused) {
-      startAnimation(currTick);
+      resumeModel();
     }
   }
 
@@ -195,32 +183,20 @@ public class InteractiveView extends AbstractVisualView {
    */
   @Override
   public void restartAnimation() {
-    timer.cancel();
-    timer = new Timer();
     start.setText("Pause");
     isPaused = false;
     startAnimation(0);
   }
 
   /**
-   * This method is only used by the Interactive view. It plays a paused animation.
-   * When unpausing/playing, the animation continues playing from the tick it was
-   * paused at.
+   * This method is only used by the Interactive view. It pauses a playing animation,
+   * leaving the frame it was paused at on the screen. When unpausing/playing, the
+   * animation continues playing from the time it was paused at.
    */
   @Override
   public void pauseAnimation() {
-    TimerTask task;
-    final int FINAL_TICK = currTick;
-    List<IAnimations> animationTime = timeline.get(FINAL_TICK);
-    task = new TimerTask() {
-      @Override
-      public void run() {
-        initializeParams();
-        addShapeParamsAtTimeT(animationTime, FINAL_TICK, timeline);
-        mainPanel.repaint();
-      }
-    };
-    scheduleTimerTasks(task, currTick);
+    pauseModel();
+    mainPanel.repaint();
   }
 
   /**
@@ -242,18 +218,27 @@ public class InteractiveView extends AbstractVisualView {
   @Override
   public void addToSubset(String item, SimpleAnimationModel subsetModel) {
     String shapeName = item.split(" ")[1];
-    if (subsetModel.getShapeByName(shapeName) == null) {
-      subsetModel.copyShape(model.getShapeByName(shapeName));
-      dropdownDisplay.setText("Added to Subset: " + shapeName);
-      for (int i = 0; i < animations.size(); i++) {
-        if (animations.get(i).getChangedShape().getShapeName().equals(shapeName)
-                && (animations.get(i).getAnimateType() != AnimateTypes.APPEAR)
-                && (animations.get(i).getAnimateType() != AnimateTypes.DISAPPEAR)) {
-          subsetModel.copyAnimation(animations.get(i));
+    boolean adding = subsetModel.getShapeByName(shapeName) == null;
+    changeModel(new Runnable() {
+      @Override
+      public void run() {
+        if (adding) {
+          subsetModel.copyShape(model.getShapeByName(shapeName));
+          for (int i = 0; i < animations.size(); i++) {
+            if (animations.get(i).getChangedShape().getShapeName().equals(shapeName)
+                    && (animations.get(i).getAnimateType() != AnimateTypes.APPEAR)
+                    && (animations.get(i).getAnimateType() != AnimateTypes.DISAPPEAR)) {
+              subsetModel.copyAnimation(animations.get(i));
+            }
+          }
+        } else {
+          subsetModel.removeShapeByName(shapeName);
         }
       }
+    });
+    if (adding) {
+      dropdownDisplay.setText("Added to Subset: " + shapeName);
     } else {
-      subsetModel.removeShapeByName(shapeName);
       dropdownDisplay.setText("Removed from Subset: " + shapeName);
     }
   }
@@ -267,23 +252,7 @@ public class InteractiveView extends AbstractVisualView {
    */
   @Override
   public void playSubset(int subsetStart, SimpleAnimationModel subsetModel) {
-    List<List<IAnimations>> subsetTimeline = subsetModel.getTimeline();
-    timer.cancel();
-    timer = new Timer();
-    TimerTask task;
-
-    for (int i = 0; i < subsetTimeline.size(); i++) {
-      final int FINALI = i;
-      task = new TimerTask() {
-        @Override
-        public void run() {
-          initializeParams();
-          addShapeParamsAtTimeT(subsetTimeline.get(FINALI), FINALI, subsetTimeline);
-          mainPanel.repaint();
-        }
-      };
-      scheduleTimerTasks(task, i);
-    }
+    play(subsetModel, subsetStart);
   }
 
   /**
@@ -328,21 +297,8 @@ public class InteractiveView extends AbstractVisualView {
   public void scrubberPlay(int tick) {
     isPaused = true;
     start.setText("Play");
-    timer.cancel();
-    timer = new Timer();
-    TimerTask task;
-    List<IAnimations> animationTime = timeline.get(tick);
-
-    task = new TimerTask() {
-      @Override
-      public void run() {
-        initializeParams();
-        addShapeParamsAtTimeT(animationTime, tick, timeline);
-        drawingPanel.repaint();
-        currTick = (tick + 1) % timeline.size();
-      }
-    };
-    scheduleTimerTasks(task, 0);
+    showTick(tick);
+    drawingPanel.repaint();
   }
 
   /**
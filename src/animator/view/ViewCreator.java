@@ -23,6 +23,38 @@ public class ViewCreator {
    */
   public static void create(ViewType type, SimpleAnimationModel model, int tempo,
                             String output) throws IOException {
+    create(type, model, tempo, output, AbstractVisualView.DEFAULT_FRAME_RATE);
+  }
+
+  /**
+   * This method creates a view based on the given parameters, drawing the given
+   * number of frames per second if it is a visual view.
+   *
+   * @param type      view type
+   * @param model     model the view is based on
+   * @param tempo     ticks per sec
+   * @param output    location of where to send the view to
+   * @param frameRate frames per sec, or 0 to draw once per tick
+   */
+  public static void create(ViewType type, SimpleAnimationModel model, int tempo,
+                            String output, int frameRate) throws IOException {
+    create(type, model, tempo, output, frameRate, AbstractVisualView.RenderMode.PASSIVE);
+  }
+
+  /**
+   * This method creates a view based on the given parameters, drawing the given
+   * number of frames per second in the given render mode if it is a visual view.
+   *
+   * @param type       view type
+   * @param model      model the view is based on
+   * @param tempo      ticks per sec
+   * @param output     location of where to send the view to
+   * @param frameRate  frames per sec, or 0 to draw once per tick
+   * @param renderMode how frames are put on the screen
+   */
+  public static void create(ViewType type, SimpleAnimationModel model, int tempo,
+                            String output, int frameRate,
+                            AbstractVisualView.RenderMode renderMode) throws IOException {
     switch (type) {
       case TEXT:
         if (output.equals("out")) {
@@ -32,7 +64,9 @@ public class ViewCreator {
         }
         break;
       case VISUAL:
-        new VisualView(model, tempo);
+        VisualView viewV = new VisualView(model, tempo);
+        viewV.setFrameRate(frameRate);
+        viewV.setRenderMode(renderMode);
         break;
       case SVG:
         if (output.equals("out")) {
@@ -42,7 +76,9 @@ public class ViewCreator {
         }
         break;
       case INTERACTIVE:
-        ViewInterface viewI = new InteractiveView(model, tempo);
+        InteractiveView viewI = new InteractiveView(model, tempo);
+        viewI.setFrameRate(frameRate);
+        viewI.setRenderMode(renderMode);
         if (!output.equals("out")) {
           new Controller(model, viewI, output);
         }
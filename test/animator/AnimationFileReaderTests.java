@@ -0,0 +1,541 @@
+package animator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import animator.model.ColumnarAnimation;
+import animator.model.FrameState;
+import animator.model.SimpleAnimation;
+import animator.model.SimpleAnimationModel;
+import animator.util.AnimationFileReader;
+import animator.util.BinaryAnimationWriter;
+import animator.util.LoadStats;
+import animator.util.ModelCache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AnimationFileReaderTests {
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void numberTokensTest() throws IOException {
+    String[] floats = {"0", "-0.0", "+1.5", "-2.25", ".5", "7.", "16777217", "16777219",
+        "33554435", "0.1", "0.30000001192092896", "3.4028235E38", "1.17549435E-38",
+        "1.0E-40", "2.5e3", "-6.02E+23", "0.000000000000000000000000000000000000000000001",
+        "123456789012345678901234567890", "1.00000005960464477539062500",
+        "0.99999997019767761230468750", "8388608.5", "8388609.5"};
+    StringBuilder text = new StringBuilder();
+    SimpleAnimation.Builder reference = new SimpleAnimation.Builder();
+    for (int i = 0; i < floats.length; i++) {
+      String name = "S" + i;
+      text.append("rectangle name ").append(name).append(" min-x ").append(floats[i])
+              .append(" min-y ").append(floats[floats.length - 1 - i])
+              .append(" width 10 height 20 color 0.5 0.25 1 from 0 to 100\n");
+      text.append("move name ").append(name).append(" moveto 0 0 ").append(floats[i])
+              .append(" +").append(i).append(" from -0 to +").append(10 + i).append("\n");
+      reference.addRectangle(name, Float.parseFloat(floats[i]),
+              Float.parseFloat(floats[floats.length - 1 - i]), 10, 20, 0.5f, 0.25f, 1, 0, 100);
+      reference.addMove(name, 0, 0, Float.parseFloat(floats[i]), i, 0, 10 + i);
+    }
+    File file = write("numbers.txt", text.toString());
+
+    assertEquals(reference.build().printAnimation(), new AnimationFileReader()
+            .readFile(file.getPath(), new SimpleAnimation.Builder()).printAnimation());
+  }
+
+  @Test
+  public void namesTest() throws IOException {
+    String[] names = {"a", "ab", "ba", "r\u00e9seau", "\u0440\u043e\u043c\u0431",
+        "\u5f62", "\u5f62\u72b6", "r\u00e9"};
+    // The file is written and read in the default charset, which may not cover every
+    // name, so the reference uses the names as they are decoded.
+    Charset charset = Charset.defaultCharset();
+    for (int i = 0; i < names.length; i++) {
+      names[i] = new String(names[i].getBytes(charset), charset);
+    }
+    StringBuilder text = new StringBuilder();
+    SimpleAnimation.Builder reference = new SimpleAnimation.Builder();
+    for (int i = 0; i < 100; i++) {
+      String name = names[i % names.length] + (i / names.length);
+      text.append("oval name ").append(name).append(" center-x ").append(i)
+              .append(" center-y 0 x-radius 5 y-radius 5 color 0 0 1 from 0 to 50\n");
+      reference.addOval(name, i, 0, 5, 5, 0, 0, 1, 0, 50);
+    }
+    for (int i = 99; i >= 0; i--) {
+      String name = names[i % names.length] + (i / names.length);
+      text.append("move name ").append(name).append(" moveto ").append(i)
+              .append(" 0 0 ").append(i).append(" from 10 to 20\n");
+      reference.addMove(name, i, 0, 0, i, 10, 20);
+    }
+    File file = folder.newFile("names.txt");
+    Files.write(file.toPath(), text.toString().getBytes(charset));
+
+    assertEquals(reference.build().printAnimation(), new AnimationFileReader()
+            .readFile(file.getPath(), new SimpleAnimation.Builder()).printAnimation());
+  }
+
+  @Test
+  public void readPathsTest() throws IOException {
+    SimpleAnimation.Builder reference = new SimpleAnimation.Builder();
+    String text = animationText(new Random(11), 4, 4000, reference);
+    String expected = reference.build().printAnimation();
+    File plain = write("large.txt", text);
+    assertTrue(plain.length() > (1 << 20));
+
+    AnimationFileReader reader = new AnimationFileReader();
+    assertEquals(expected, reader.readFile(plain.getPath(),
+            new SimpleAnimation.Builder()).printAnimation());
+
+    File gzip = folder.newFile("large.txt.gz");
+    try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gzip))) {
+      out.write(text.getBytes(StandardCharsets.US_ASCII));
+    }
+    assertEquals(expected, reader.readFile(gzip.getPath(),
+            new SimpleAnimation.Builder()).printAnimation());
+  }
+
+  @Test
+  public void readInParallelTest() throws IOException {
+    SimpleAnimation.Builder reference = new SimpleAnimation.Builder();
+    String text = animationText(new Random(12), 4, 4000, reference);
+    String expected = reference.build().printAnimation();
+    // Chunks are at least 256 KB, so the file is split into several chunks, and the
+    // commands broken over lines make chunks begin partway through a command.
+    File plain = write("large.txt", text);
+    assertTrue(plain.length() > (4 << 18));
+
+    AnimationFileReader reader = new AnimationFileReader();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      assertEquals(expected, reader.readFileInParallel(plain.getPath(),
+              new SimpleAnimation.Builder(), pool).printAnimation());
+      assertEquals(expected, reader.readFileInParallel(plain.getPath(),
+              new SimpleAnimation.Builder(new SimpleAnimation(), true), pool)
+              .printAnimation());
+      for (String fileName : new String[] {"toh-8.txt", "buildings.txt",
+          "multilayertest.txt"}) {
+        assertEquals(read(new File(fileName)), reader.readFileInParallel(fileName,
+                new SimpleAnimation.Builder(), pool).printAnimation());
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void binaryFileTest() throws IOException {
+    SimpleAnimation.Builder reference = new SimpleAnimation.Builder();
+    String text = animationText(new Random(11), 4, 4000, reference);
+    String expected = reference.build().printAnimation();
+    File plain = write("large.txt", text);
+    File binary = new File(folder.getRoot(), "large.anim");
+    BinaryAnimationWriter.convert(plain.getPath(), binary.getPath());
+    assertTrue(binary.length() < plain.length());
+
+    AnimationFileReader reader = new AnimationFileReader();
+    assertEquals(expected, reader.readFile(binary.getPath(),
+            new SimpleAnimation.Builder()).printAnimation());
+    assertEquals(expected, reader.readFileInParallel(binary.getPath(),
+            new SimpleAnimation.Builder()).printAnimation());
+
+    File small = new File(folder.getRoot(), "small.anim");
+    BinaryAnimationWriter.convert("smalldemo.txt", small.getPath());
+    assertEquals(read(new File("smalldemo.txt")), read(small));
+    byte[] bytes = Files.readAllBytes(small.toPath());
+
+    assertInvalidBinary(Arrays.copyOf(bytes, 22), "Binary animation file is truncated");
+    assertInvalidBinary(Arrays.copyOf(bytes, bytes.length - 1),
+            "Binary animation file is truncated");
+    ByteBuffer header = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    int firstRecord = bytes.length - (header.getInt(12) * 48);
+    byte[] badName = bytes.clone();
+    ByteBuffer.wrap(badName).order(ByteOrder.LITTLE_ENDIAN).putInt(firstRecord + 4,
+            header.getInt(8));
+    assertInvalidBinary(badName, "Invalid string index in binary animation file");
+    byte[] badLayer = bytes.clone();
+    ByteBuffer.wrap(badLayer).order(ByteOrder.LITTLE_ENDIAN).putInt(firstRecord + 8, -2);
+    assertInvalidBinary(badLayer, "Invalid string index in binary animation file");
+  }
+
+  @Test
+  public void modelCacheTest() throws IOException {
+    File input = copy("smalldemo.txt");
+    File other = copy("toh-3.txt");
+    File directory = new File(folder.getRoot(), "cache");
+    ModelCache cache = new ModelCache(directory.getPath());
+    assertEquals(read(input), cache.readFile(input.getPath(),
+            new SimpleAnimation.Builder()).printAnimation());
+    File[] entries = directory.listFiles();
+    assertEquals(1, entries.length);
+
+    // An entry that is found is read instead of the file.
+    BinaryAnimationWriter.convert(other.getPath(), entries[0].getPath());
+    assertEquals(read(other), cache.readFile(input.getPath(),
+            new SimpleAnimation.Builder()).printAnimation());
+
+    try (OutputStream out = new FileOutputStream(input, true)) {
+      out.write("move name R moveto 200 200 250 250 from 1 to 5\n"
+              .getBytes(StandardCharsets.US_ASCII));
+    }
+    assertEquals(read(input), cache.readFile(input.getPath(),
+            new SimpleAnimation.Builder()).printAnimation());
+    assertEquals(2, directory.listFiles().length);
+  }
+
+  @Test
+  public void modelCacheEvictionTest() throws IOException {
+    File first = copy("smalldemo.txt");
+    File second = copy("toh-3.txt");
+    File sizes = new File(folder.getRoot(), "sizes");
+    new ModelCache(sizes.getPath()).readFile(first.getPath(), new SimpleAnimation.Builder());
+    new ModelCache(sizes.getPath()).readFile(second.getPath(), new SimpleAnimation.Builder());
+    long largest = 0;
+    for (File entry : sizes.listFiles()) {
+      largest = Math.max(largest, entry.length());
+    }
+
+    File directory = new File(folder.getRoot(), "cache");
+    ModelCache cache = new ModelCache(directory.getPath(), largest);
+    cache.readFile(first.getPath(), new SimpleAnimation.Builder());
+    File[] entries = directory.listFiles();
+    assertEquals(1, entries.length);
+    assertTrue(entries[0].setLastModified(1000));
+    assertEquals(read(second), cache.readFile(second.getPath(),
+            new SimpleAnimation.Builder()).printAnimation());
+    entries = directory.listFiles();
+    assertEquals(1, entries.length);
+    assertTrue(entries[0].lastModified() > 1000);
+  }
+
+  @Test
+  public void compressedFileTest() throws IOException {
+    File plain = copy("smalldemo.txt");
+    byte[] text = Files.readAllBytes(plain.toPath());
+    File gzip = folder.newFile("smalldemo.dat");
+    try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gzip))) {
+      out.write(text);
+    }
+    File zip = folder.newFile("smalldemo.zip");
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+      out.putNextEntry(new ZipEntry("animations/"));
+      out.putNextEntry(new ZipEntry("animations/smalldemo.txt"));
+      out.write(text);
+    }
+    File binary = new File(folder.getRoot(), "smalldemo.anim");
+    BinaryAnimationWriter.convert(plain.getPath(), binary.getPath());
+    File binaryGzip = folder.newFile("smalldemo.anim.gz");
+    try (OutputStream out = new GZIPOutputStream(new FileOutputStream(binaryGzip))) {
+      out.write(Files.readAllBytes(binary.toPath()));
+    }
+
+    String expected = read(plain);
+    assertEquals(expected, read(gzip));
+    assertEquals(expected, read(zip));
+    assertEquals(expected, read(binaryGzip));
+  }
+
+  @Test
+  public void readShapesTest() throws IOException {
+    File input = copy("multilayertest.txt");
+    List<String> names = Arrays.asList("Rect1", "Oval3");
+    StringBuilder selected = new StringBuilder();
+    for (String line : Files.readAllLines(input.toPath(), StandardCharsets.US_ASCII)) {
+      String[] tokens = line.trim().split("\\s+");
+      if (line.startsWith("layer") || ((tokens.length > 2) && names.contains(tokens[2]))) {
+        selected.append(line).append('\n');
+      }
+    }
+    SimpleAnimationModel expected = new AnimationFileReader().readFile(
+            write("selected.txt", selected.toString()).getPath(),
+            new SimpleAnimation.Builder());
+
+    AnimationFileReader reader = new AnimationFileReader();
+    for (int i = 0; i < 2; i++) {
+      SimpleAnimationModel anime = reader.readShapes(input.getPath(), names,
+              new SimpleAnimation.Builder());
+      assertTrue(new File(input.getPath() + ".idx").isFile());
+      assertEquals(2, anime.getShapes().size());
+      assertEquals(expected.printAnimation(), anime.printAnimation());
+      FrameState frame = anime.evaluate(10, null);
+      FrameState expectedFrame = expected.evaluate(10, null);
+      for (int j = 0; j < frame.getCount(); j++) {
+        assertEquals(expectedFrame.getLayer(j), frame.getLayer(j));
+        assertEquals(expected.getShapeByName(frame.getShape(j).getShapeName()).getLayer()
+                .getLayerName(), frame.getShape(j).getLayer().getLayerName());
+      }
+    }
+
+    // An index that no longer matches its file is built again.
+    try (OutputStream out = new FileOutputStream(input, true)) {
+      out.write(("\noval name Extra layer Layer0 center-x 1 center-y 2 x-radius 3 y-radius 4 "
+              + "color 0 0 0 from 1 to 9\n").getBytes(StandardCharsets.US_ASCII));
+    }
+    SimpleAnimationModel extra = reader.readShapes(input.getPath(),
+            Collections.singletonList("Extra"), new SimpleAnimation.Builder());
+    assertEquals(1, extra.getShapes().size());
+    assertEquals("Extra", extra.getShape(0).getShapeName());
+    assertEquals("Layer0", extra.getShape(0).getLayer().getLayerName());
+  }
+
+  @Test
+  public void readFilesTest() throws IOException {
+    List<String> fileNames = Arrays.asList(copy("2layerstest.txt").getPath(),
+            copy("multilayertest.txt").getPath(), copy("smalldemo.txt").getPath());
+    SimpleAnimationModel anime = new AnimationFileReader().readFiles(fileNames,
+            Arrays.asList("a", "b", "c"), new SimpleAnimation.Builder());
+    assertEquals(2 + 12 + 2, anime.getShapes().size());
+    assertLayer(anime, "a/R", "a/bottom", 2);
+    assertLayer(anime, "a/O", "a/top", 5);
+    assertLayer(anime, "b/Oval3", "b/Layer0", 6);
+    assertLayer(anime, "b/Rect4", "b/Layer3", 9);
+    assertLayer(anime, "c/R", "c/", 10);
+    assertLayer(anime, "c/C", "c/", 10);
+
+    File manifest = write("scene.txt", "# scene\n2layerstest.txt a\n\nmultilayertest.txt b\n"
+            + "smalldemo.txt c\n");
+    assertEquals(anime.printAnimation(), new AnimationFileReader().readManifest(
+            manifest.getPath(), new SimpleAnimation.Builder()).printAnimation());
+  }
+
+  @Test
+  public void reversedTimesFileTest() throws IOException {
+    File file = write("reversed.txt", "rectangle name R min-x 0 min-y 0 width 10 height 20 "
+            + "color 1 0 0 from 0 to 100\n"
+            + "move name R moveto 0 0 10 20 from 30 to 20\n"
+            + "move name R moveto 0 0 40 50 from 20 to 30\n"
+            + "change-color name R colorto 1 0 0 0 1 0 from 60 to 50\n");
+    SimpleAnimationModel[] models = {
+        new AnimationFileReader().readFile(file.getPath(), new SimpleAnimation.Builder()),
+        new AnimationFileReader().readFile(file.getPath(),
+                new SimpleAnimation.Builder(new SimpleAnimation(), true)),
+        new AnimationFileReader().readFile(file.getPath(),
+                new SimpleAnimation.Builder(new ColumnarAnimation()))};
+    for (SimpleAnimationModel anime : models) {
+      String text = anime.printAnimation();
+      assertTrue(text, text.contains("Shape R moves from (40.0, 50.0) to (10.0, 20.0) "
+              + "from t=30 to t=20"));
+      assertTrue(text, text.contains("Shape R changes color from"));
+      assertEquals(40.0, anime.evaluate(70, null).getX(0), 0.0);
+      assertEquals(1.0, anime.evaluate(70, null).getRed(0), 0.0);
+    }
+    assertEquals(models[0].printAnimation(), models[1].printAnimation());
+  }
+
+  @Test
+  public void loadStatsTest() throws IOException {
+    String text = "layer name top layerorder 5\n"
+            + "layer name bottom layerorder 2\n"
+            + "oval name O layer top center-x 30 center-y 30 x-radius 20 y-radius 20 "
+            + "color 0 1 1 from 1 to 100\n"
+            + "rectangle name R layer bottom min-x 10 min-y 10 width 40 height 40 "
+            + "color 1 0 1 from 1 to 100\n"
+            + "rectangle name S min-x 0 min-y 0 width 5 height 5 color 1 0 0 from 1 to 50\n"
+            + "move name O moveto 30 30 5 5 from 10 to 30\n"
+            + "move name O moveto 5 5 50 50 from 31 to 40\n"
+            + "move name S moveto 0 0 10 10 from 10 to 20\n"
+            + "change-color name R colorto 1 0 1 0 1 0 from 20 to 40\n"
+            + "scale name S scaleto 5 5 10 10 from 20 to 30\n"
+            + "rotate name R rotateto 0 90 from 1 to 50\n"
+            + "rotate name S rotateto 0 180 from 30 to 40";
+    File file = write("stats.txt", text);
+    File binary = new File(folder.getRoot(), "stats.anim");
+    BinaryAnimationWriter.convert(file.getPath(), binary.getPath());
+
+    LoadStats stats = new LoadStats();
+    stats.start();
+    SimpleAnimationModel anime = new AnimationFileReader().readFile(file.getPath(),
+            stats.instrument(new SimpleAnimation.Builder()));
+    stats.stop();
+    stats.addInput(file.getPath());
+    stats.addInput(binary.getPath());
+    stats.recordTimelineSize(anime.getTimelineSize());
+
+    assertEquals(read(file), anime.printAnimation());
+    assertEquals(1, stats.getCommandCount("oval"));
+    assertEquals(2, stats.getCommandCount("rectangle"));
+    assertEquals(3, stats.getCommandCount("move"));
+    assertEquals(1, stats.getCommandCount("change-color"));
+    assertEquals(1, stats.getCommandCount("scale"));
+    assertEquals(2, stats.getCommandCount("rotate"));
+    assertEquals(2, stats.getCommandCount("layer"));
+    assertEquals(12, stats.getCommandCount());
+    assertEquals(2, stats.getFiles());
+    assertEquals(file.length() + binary.length(), stats.getBytes());
+    // The last line has no newline but is still counted, and the binary file has no
+    // lines.
+    assertEquals(12, stats.getLines());
+    assertEquals(anime.getTimelineSize(), stats.getPeakTimelineSize());
+    assertTrue(stats.getTotalNanos() >= stats.getBuildNanos() + stats.getFinishNanos());
+
+    String json = stats.toJson();
+    for (String key : new String[] {"\"files\": 2,", "\"bytes\": " + stats.getBytes() + ",",
+        "\"lines\": 12,", "\"oval\": 1,", "\"rectangle\": 2,", "\"move\": 3,",
+        "\"change-color\": 1,", "\"scale\": 1,", "\"rotate\": 2,", "\"layer\": 2\n",
+        "\"total\": ", "\"parse\": ", "\"build\": ", "\"finish\": ",
+        "\"bytesPerSecond\": ", "\"linesPerSecond\": ", "\"commandsPerSecond\": ",
+        "\"peakTimelineSize\": " + anime.getTimelineSize() + "\n"}) {
+      assertTrue(key, json.contains(key));
+    }
+
+    try {
+      stats.getCommandCount("square");
+      fail("There is no square command");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Invalid command square", e.getMessage());
+    }
+  }
+
+  /**
+   * Writes an animation with the given number of shapes and commands per shape in
+   * random number formats, making the same commands on the reference builder with
+   * the numbers parsed by Float.parseFloat. Commands are broken over lines at
+   * random, so chunks of the file begin partway through commands.
+   */
+  private static String animationText(Random random, int shapeCount, int commandCount,
+                                      SimpleAnimation.Builder reference) {
+    StringBuilder text = new StringBuilder();
+    int end = (commandCount * 2) + 2;
+    for (int s = 0; s < shapeCount; s++) {
+      String name = "shape" + s;
+      String x = number(random);
+      String y = number(random);
+      text.append("rectangle name ").append(name).append(" min-x ").append(x)
+              .append(" min-y ").append(y).append(" width 10 height 20 color 1 0 0 from 0 to ")
+              .append(end).append('\n');
+      reference.addRectangle(name, Float.parseFloat(x), Float.parseFloat(y), 10, 20, 1, 0, 0,
+              0, end);
+    }
+    for (int c = 0; c < commandCount; c++) {
+      for (int s = 0; s < shapeCount; s++) {
+        String name = "shape" + s;
+        String[] values = {number(random), number(random), fraction(random),
+            fraction(random), fraction(random)};
+        int start = c * 2;
+        switch ((c + s) % 4) {
+          case 0:
+            append(random, text, "move name", name, "moveto 0 0", values[0], values[1]);
+            reference.addMove(name, 0, 0, Float.parseFloat(values[0]),
+                    Float.parseFloat(values[1]), start, start + 1);
+            break;
+          case 1:
+            append(random, text, "change-color name", name, "colorto 0 0 0", values[2],
+                    values[3], values[4]);
+            reference.addColorChange(name, 0, 0, 0, Float.parseFloat(values[2]),
+                    Float.parseFloat(values[3]), Float.parseFloat(values[4]), start, start + 1);
+            break;
+          case 2:
+            String width = size(random);
+            String height = size(random);
+            append(random, text, "scale name", name, "scaleto 1 1", width, height);
+            reference.addScaleToChange(name, 1, 1, Float.parseFloat(width),
+                    Float.parseFloat(height), start, start + 1);
+            break;
+          default:
+            int rotation = random.nextInt(721) - 360;
+            append(random, text, "rotate name", name, "rotateto 0",
+                    ((rotation >= 0) ? "+" : "") + rotation);
+            reference.addRotateChange(name, 0, rotation, start, start + 1);
+            break;
+        }
+        text.append("from ").append(start).append(random.nextBoolean() ? "\n" : " ")
+                .append("to ").append(start + 1).append('\n');
+      }
+    }
+    return text.toString();
+  }
+
+  private static void append(Random random, StringBuilder text, String... tokens) {
+    for (String token : tokens) {
+      text.append(token).append((random.nextInt(4) == 0) ? '\n' : ' ');
+    }
+  }
+
+  /**
+   * Gets a number in one of the forms the file format allows.
+   */
+  private static String number(Random random) {
+    float value = (random.nextFloat() - 0.5f) * 2000;
+    switch (random.nextInt(6)) {
+      case 0:
+        return String.format(Locale.ROOT, "%.3f", value);
+      case 1:
+        return Float.toString(value);
+      case 2:
+        return String.format(Locale.ROOT, "%+.7f", value);
+      case 3:
+        return String.format(Locale.ROOT, "%.20f", (double) value / 3);
+      case 4:
+        return String.format(Locale.ROOT, "%.4e", value);
+      default:
+        return Integer.toString((int) value);
+    }
+  }
+
+  private static String fraction(Random random) {
+    return random.nextBoolean() ? Double.toString(random.nextDouble())
+            : String.format(Locale.ROOT, "%.2f", random.nextDouble());
+  }
+
+  private static String size(Random random) {
+    return String.format(Locale.ROOT, "%.5f", 1 + (random.nextDouble() * 99));
+  }
+
+  private static void assertLayer(SimpleAnimationModel anime, String shape, String layer,
+                                  int order) {
+    assertEquals(layer, anime.getShapeByName(shape).getLayer().getLayerName());
+    assertEquals(order, anime.getShapeByName(shape).getLayer().getOrder());
+  }
+
+  private void assertInvalidBinary(byte[] bytes, String message) throws IOException {
+    File file = folder.newFile();
+    Files.write(file.toPath(), bytes);
+    try {
+      read(file);
+      fail("A damaged binary animation file was read");
+    } catch (IllegalStateException e) {
+      assertEquals(message, e.getMessage());
+    }
+  }
+
+  private String read(File file) throws IOException {
+    return new AnimationFileReader().readFile(file.getPath(), new SimpleAnimation.Builder())
+            .printAnimation();
+  }
+
+  private File copy(String fileName) throws IOException {
+    File file = new File(folder.getRoot(), fileName);
+    Files.copy(new File(fileName).toPath(), file.toPath());
+    return file;
+  }
+
+  private File write(String fileName, String text) throws IOException {
+    File file = folder.newFile(fileName);
+    try (OutputStream out = new FileOutputStream(file)) {
+      out.write(text.getBytes(StandardCharsets.US_ASCII));
+    }
+    return file;
+  }
+}
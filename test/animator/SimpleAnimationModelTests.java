@@ -7,16 +7,24 @@ import java.util.Collections;
 import java.util.List;
 
 import animator.model.AnimatedShape;
+import animator.model.ColumnarAnimation;
+import animator.model.FrameState;
 import animator.model.IAnimatedShape;
+import animator.model.IAnimations;
 import animator.model.IPosition2D;
 import animator.model.IRGB;
 import animator.model.Position2D;
 import animator.model.RGB;
 import animator.model.SimpleAnimation;
 import animator.model.SimpleAnimationModel;
+import animator.model.SizeParams;
+import animator.model.enums.AnimateTypes;
 import animator.model.enums.ShapeType;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class SimpleAnimationModelTests {
   @Test
@@ -242,4 +250,312 @@ public class SimpleAnimationModelTests {
     anime.moveShape(anime.getShape(0), new Position2D(0, 0), 215, 230);
     anime.moveShape(anime.getShape(0), new Position2D(5, 5), 195, 220);
   }
+
+  @Test
+  public void timelineQueryTest() {
+    SimpleAnimationModel anime = new SimpleAnimation();
+    anime.createShape("R", ShapeType.SQUARE, new RGB(0.0, 0.0, 1.0),
+            new Position2D(0, 0), Collections.singletonList(5.0), 0, 50);
+    anime.moveShape(anime.getShape(0), new Position2D(10.0, 20.0), 10, 20);
+    anime.changeShapeColor(anime.getShape(0), new RGB(1.0, 0.0, 0.0), 30, 40);
+    assertEquals(51, anime.getTimeline().size());
+    assertEquals(1, anime.getTimeline().get(15).size());
+    assertEquals(AnimateTypes.MOVE, anime.getTimeline().get(15).get(0).getAnimateType());
+    assertEquals(2, anime.getAnimationsBetween(18, 32).size());
+    assertEquals(AnimateTypes.CHANGECOLOR, anime.getAnimationsBetween(21, 50).get(0)
+            .getAnimateType());
+  }
+
+  @Test
+  public void stillShapeTest() {
+    SimpleAnimationModel anime = new SimpleAnimation();
+    anime.createShape("R", ShapeType.SQUARE, new RGB(0.0, 0.0, 1.0),
+            new Position2D(0, 0), Collections.singletonList(5.0), 0, 50);
+    anime.moveShape(anime.getShape(0), new Position2D(10.0, 20.0), 10, 20);
+    assertEquals(0, anime.getAnimationsAt(30).size());
+    assertEquals(1, anime.getTimeline().get(30).size());
+    assertEquals(AnimateTypes.STILL, anime.getTimeline().get(30).get(0).getAnimateType());
+    assertEquals(new Position2D(10.0, 20.0), anime.calcCurrPosition(anime.getShape(0), 30));
+  }
+
+  @Test
+  public void beginValuePropagationTest() {
+    SimpleAnimationModel anime = new SimpleAnimation();
+    anime.createShape("R", ShapeType.SQUARE, new RGB(0.0, 0.0, 1.0),
+            new Position2D(0, 0), Collections.singletonList(5.0), 0, 50);
+    IAnimatedShape shape = anime.getShape(0);
+    anime.moveShape(shape, new Position2D(30.0, 30.0), 30, 40);
+    anime.changeShapeColor(shape, new RGB(1.0, 0.0, 0.0), 20, 25);
+    anime.moveShape(shape, new Position2D(10.0, 10.0), 10, 20);
+    IAnimations lastMove = anime.getAnimationsAt(35).get(0);
+    IAnimations colorChange = anime.getAnimationsAt(22).get(0);
+    assertEquals(new Position2D(10.0, 10.0), lastMove.getPosition1());
+    assertEquals(new Position2D(10.0, 10.0), colorChange.getPosition1());
+    assertEquals(new RGB(1.0, 0.0, 0.0), lastMove.getColor1());
+
+    anime.removeAnimation(shape, AnimateTypes.MOVE, 15);
+    assertEquals(new Position2D(0.0, 0.0), lastMove.getPosition1());
+    assertEquals(new Position2D(0.0, 0.0), colorChange.getPosition1());
+  }
+
+  @Test
+  public void keyframeIndexTest() {
+    SimpleAnimationModel anime = new SimpleAnimation();
+    anime.createShape("R", ShapeType.SQUARE, new RGB(0.0, 0.0, 1.0),
+            new Position2D(0, 0), Collections.singletonList(5.0), 0, 100);
+    IAnimatedShape shape = anime.getShape(0);
+    anime.moveShape(shape, new Position2D(50.0, 50.0), 60, 70);
+    anime.moveShape(shape, new Position2D(10.0, 10.0), 10, 20);
+    anime.moveShape(shape, new Position2D(30.0, 30.0), 30, 40);
+    List<IAnimations> moves = anime.getKeyframes(shape, AnimateTypes.MOVE);
+    assertEquals(3, moves.size());
+    assertEquals(10, (int) moves.get(0).getTime1());
+    assertEquals(30, (int) moves.get(1).getTime1());
+    assertEquals(60, (int) moves.get(2).getTime1());
+    assertEquals(0, anime.getKeyframes(shape, AnimateTypes.ROTATE).size());
+    assertEquals(new Position2D(0.0, 0.0), anime.calcCurrPosition(shape, 9));
+    assertEquals(new Position2D(30.0, 30.0), anime.calcCurrPosition(shape, 30));
+    assertEquals(new Position2D(30.0, 30.0), anime.calcCurrPosition(shape, 59));
+    assertEquals(new Position2D(50.0, 50.0), anime.calcCurrPosition(shape, 99));
+  }
+
+  @Test
+  public void shapeByNameTest() {
+    SimpleAnimationModel anime = new SimpleAnimation();
+    anime.createShape("R", ShapeType.SQUARE, new RGB(0.0, 0.0, 1.0),
+            new Position2D(0, 0), Collections.singletonList(5.0), 0, 100);
+    anime.createShape("C", ShapeType.CIRCLE, new RGB(1.0, 0.0, 0.0),
+            new Position2D(5, 5), Collections.singletonList(2.0), 0, 100);
+    assertEquals(anime.getShape(1), anime.getShapeByName("C"));
+    anime.removeShapeByName("R");
+    assertEquals(null, anime.getShapeByName("R"));
+    assertEquals(anime.getShape(0), anime.getShapeByName("C"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void overlappingLongMoveTest() {
+    SimpleAnimationModel anime = new SimpleAnimation();
+    anime.createShape("R", ShapeType.SQUARE, new RGB(0.0, 0.0, 1.0),
+            new Position2D(0, 0), Collections.singletonList(5.0), 0, 20000);
+    anime.moveShape(anime.getShape(0), new Position2D(10.0, 10.0), 0, 10000);
+    anime.changeShapeColor(anime.getShape(0), new RGB(1.0, 0.0, 0.0), 5000, 6000);
+    anime.moveShape(anime.getShape(0), new Position2D(20.0, 20.0), 10001, 19000);
+    anime.moveShape(anime.getShape(0), new Position2D(30.0, 30.0), 9000, 9500);
+  }
+
+  @Test
+  public void animationOrderTest() {
+    SimpleAnimationModel anime = new SimpleAnimation();
+    anime.createShape("R", ShapeType.SQUARE, new RGB(0.0, 0.0, 1.0),
+            new Position2D(0, 0), Collections.singletonList(5.0), 0, 100);
+    anime.moveShape(anime.getShape(0), new Position2D(10.0, 10.0), 30, 40);
+    anime.changeShapeColor(anime.getShape(0), new RGB(1.0, 0.0, 0.0), 10, 20);
+    anime.rotateShape(anime.getShape(0), 90, 10, 20);
+    List<IAnimations> animations = anime.getAnimations();
+    assertEquals(5, animations.size());
+    assertEquals(AnimateTypes.APPEAR, animations.get(0).getAnimateType());
+    assertEquals(AnimateTypes.ROTATE, animations.get(1).getAnimateType());
+    assertEquals(AnimateTypes.CHANGECOLOR, animations.get(2).getAnimateType());
+    assertEquals(AnimateTypes.MOVE, animations.get(3).getAnimateType());
+    assertEquals(AnimateTypes.DISAPPEAR, animations.get(4).getAnimateType());
+  }
+
+  @Test
+  public void primitiveValuesTest() {
+    SimpleAnimationModel anime = new SimpleAnimation();
+    List<Double> size = new ArrayList<>();
+    size.add(4.0);
+    size.add(6.0);
+    anime.createShape("R", ShapeType.RECTANGLE, new RGB(0.5, 0.0, 1.0),
+            new Position2D(3, 7), size, 0, 100);
+    IAnimatedShape shape = anime.getShape(0);
+    assertEquals(3.0, shape.getInitialPosition().xValue(), 0.001);
+    assertEquals(7.0, shape.getInitialPosition().yValue(), 0.001);
+    assertEquals(0.5, shape.getInitialColor().redValue(), 0.001);
+    assertEquals(size, shape.getInitialSize());
+    assertEquals(6.0, SizeParams.of(shape.getInitialSize()).valueAt(1), 0.001);
+  }
+
+  @Test
+  public void columnarModelTest() {
+    SimpleAnimationModel simple = new SimpleAnimation();
+    SimpleAnimationModel columnar = new ColumnarAnimation();
+    for (SimpleAnimationModel anime : new SimpleAnimationModel[] {simple, columnar}) {
+      anime.createShape("R", ShapeType.SQUARE, new RGB(0.0, 0.0, 1.0),
+              new Position2D(0, 0), Collections.singletonList(5.0), 0, 100);
+      anime.createShape("C", ShapeType.CIRCLE, new RGB(1.0, 0.0, 0.0),
+              new Position2D(5, 5), Collections.singletonList(2.0), 10, 90);
+      anime.moveShape(anime.getShape(0), new Position2D(10.0, 10.0), 30, 40);
+      anime.changeShapeColor(anime.getShape(1), new RGB(0.0, 1.0, 0.0), 10, 20);
+      anime.moveShape(anime.getShape(0), new Position2D(20.0, 30.0), 5, 25);
+      anime.rotateShape(anime.getShape(1), 90, 10, 50);
+    }
+    assertEquals(simple.printAnimation(), columnar.printAnimation());
+    assertEquals(simple.getTimeline().size(), columnar.getTimeline().size());
+    assertEquals(8, simple.getTimelineSize());
+    assertEquals(8, columnar.getTimelineSize());
+    assertEquals(simple.getTimeline().get(35).toString(),
+            columnar.getTimeline().get(35).toString());
+    assertEquals(new Position2D(20.0, 30.0),
+            columnar.getKeyframes(columnar.getShape(0), AnimateTypes.MOVE).get(1).getPosition1());
+    columnar.removeAnimation(columnar.getShape(0), AnimateTypes.MOVE, 10);
+    assertEquals(new Position2D(0.0, 0.0),
+            columnar.getKeyframes(columnar.getShape(0), AnimateTypes.MOVE).get(0).getPosition1());
+  }
+
+  @Test
+  public void evaluateTest() {
+    SimpleAnimationModel simple = new SimpleAnimation();
+    SimpleAnimationModel columnar = new ColumnarAnimation();
+    for (SimpleAnimationModel anime : new SimpleAnimationModel[] {simple, columnar}) {
+      anime.createShape("R", ShapeType.SQUARE, new RGB(0.0, 0.0, 1.0),
+              new Position2D(0, 0), Collections.singletonList(5.0), 0, 100);
+      anime.createShape("C", ShapeType.CIRCLE, new RGB(1.0, 0.0, 0.0),
+              new Position2D(5, 5), Collections.singletonList(2.0), 10, 90);
+      anime.moveShape(anime.getShape(0), new Position2D(10.0, 20.0), 0, 10);
+
+      FrameState frame = anime.evaluate(5, null);
+      assertEquals(1, frame.getCount());
+      assertEquals(5.0, frame.getX(0), 0.001);
+      assertEquals(10.0, frame.getY(0), 0.001);
+      assertEquals(5.0, frame.getWidth(0), 0.001);
+
+      assertSame(frame, anime.evaluate(50, frame));
+      assertEquals(2, frame.getCount());
+      assertEquals(10.0, frame.getX(0), 0.001);
+      assertEquals(ShapeType.CIRCLE, frame.getType(1));
+      assertEquals(1.0, frame.getRed(1), 0.001);
+
+      anime.evaluateAt(2.5, frame);
+      assertEquals(1, frame.getCount());
+      assertEquals(2.5, frame.getX(0), 0.001);
+      assertEquals(5.0, frame.getY(0), 0.001);
+      anime.evaluateAt(12.5, frame);
+      assertEquals(10.0, frame.getX(0), 0.001);
+    }
+  }
+
+  @Test
+  public void reversedTimesTest() {
+    SimpleAnimationModel simple = new SimpleAnimation();
+    SimpleAnimationModel columnar = new ColumnarAnimation();
+    for (SimpleAnimationModel anime : new SimpleAnimationModel[] {simple, columnar}) {
+      anime.createShape("R", ShapeType.SQUARE, new RGB(0.0, 0.0, 1.0),
+              new Position2D(0, 0), Collections.singletonList(5.0), 0, 100);
+      anime.moveShape(anime.getShape(0), new Position2D(10.0, 20.0), 30, 20);
+      anime.moveShape(anime.getShape(0), new Position2D(40.0, 50.0), 20, 30);
+
+      assertEquals(4, anime.getAnimations().size());
+      assertTrue(anime.printAnimation().contains("Shape R moves from (40.0, 50.0) to "
+              + "(10.0, 20.0) from t=30 to t=20"));
+      assertEquals(1, anime.getKeyframes(anime.getShape(0), AnimateTypes.MOVE).size());
+      assertEquals(3, anime.getTimelineSize());
+      assertEquals(1, anime.getAnimationsAt(25).size());
+      assertEquals(40.0, anime.evaluate(50, null).getX(0), 0.0);
+    }
+  }
+
+  @Test
+  public void stillValuesTest() {
+    SimpleAnimationModel simple = new SimpleAnimation();
+    SimpleAnimationModel columnar = new ColumnarAnimation();
+    for (SimpleAnimationModel anime : new SimpleAnimationModel[] {simple, columnar}) {
+      anime.createShape("R", ShapeType.SQUARE, new RGB(0.0, 0.0, 1.0),
+              new Position2D(0, 0), Collections.singletonList(5.0), 0, 100);
+      anime.moveShape(anime.getShape(0), new Position2D(10.0, 20.0), 10, 20);
+      anime.changeShapeColor(anime.getShape(0), new RGB(1.0, 0.0, 0.0), 5, 15);
+      anime.changeShapeSize(anime.getShape(0), Collections.singletonList(8.0), 20, 25);
+      anime.rotateShape(anime.getShape(0), 45, 12, 18);
+
+      List<IAnimations> before = anime.getTimeline().get(5);
+      assertEquals(1, before.size());
+      assertEquals(AnimateTypes.CHANGECOLOR, before.get(0).getAnimateType());
+
+      List<IAnimations> still = anime.getTimeline().get(30);
+      assertEquals(1, still.size());
+      assertEquals(AnimateTypes.STILL, still.get(0).getAnimateType());
+      assertEquals(new Position2D(10.0, 20.0), still.get(0).getPosition1());
+      assertEquals(new RGB(1.0, 0.0, 0.0), still.get(0).getColor1());
+      assertEquals(Collections.singletonList(8.0), still.get(0).getSizeParams1());
+      assertEquals(Integer.valueOf(45), still.get(0).getRotation1());
+      assertTrue(still.get(0).toString().endsWith("is still at position (10.0, 20.0)"));
+
+      still = anime.getTimeline().get(2);
+      assertEquals(new Position2D(0.0, 0.0), still.get(0).getPosition1());
+      assertEquals(new RGB(0.0, 0.0, 1.0), still.get(0).getColor1());
+    }
+  }
+
+  @Test
+  public void duplicateNamesTest() {
+    for (int removed = 0; removed < 2; removed++) {
+      SimpleAnimationModel anime = new SimpleAnimation();
+      for (int i = 0; i < 2; i++) {
+        anime.createShape("R", ShapeType.SQUARE, new RGB(0.0, 0.0, 1.0),
+                new Position2D(0, 0), Collections.singletonList(5.0), 0, 100);
+      }
+      anime.moveShape(anime.getShape(0), new Position2D(10.0, 20.0), 10, 20);
+      FrameState frame = anime.evaluate(30, null);
+      assertEquals(2, frame.getCount());
+      assertEquals(10.0, frame.getX(0), 0.0);
+      assertEquals(0.0, frame.getX(1), 0.0);
+      assertEquals(0, anime.getKeyframes(anime.getShape(1), AnimateTypes.MOVE).size());
+
+      anime.removeShape(1 - removed);
+      frame = anime.evaluate(30, null);
+      assertEquals(1, frame.getCount());
+      assertEquals((removed == 0) ? 10.0 : 0.0, frame.getX(0), 0.0);
+      assertEquals(1, anime.getAnimationsAt(0).size());
+      assertSame(anime.getShape(0), anime.getAnimationsAt(0).get(0).getChangedShape());
+    }
+  }
+
+  @Test
+  public void bulkBuilderTest() {
+    SimpleAnimation.Builder live = new SimpleAnimation.Builder();
+    SimpleAnimation.Builder bulk = new SimpleAnimation.Builder(new SimpleAnimation(), true);
+    for (SimpleAnimation.Builder builder : new SimpleAnimation.Builder[] {live, bulk}) {
+      builder.addRectangle("R", 0, 0, 10, 20, 1, 0, 0, 0, 100);
+      builder.addMove("R", 0, 0, 50, 50, 40, 60);
+      builder.addMove("R", 0, 0, 20, 30, 10, 20);
+      builder.addColorChange("R", 1, 0, 0, 0, 1, 0, 15, 45);
+      builder.addScaleToChange("R", 10, 20, 30, 40, 0, 5);
+    }
+    SimpleAnimationModel expected = live.build();
+    SimpleAnimationModel anime = bulk.build();
+    assertEquals(expected.printAnimation(), anime.printAnimation());
+    assertEquals(new Position2D(20.0, 30.0), anime.getKeyframes(anime.getShape(0),
+            AnimateTypes.MOVE).get(1).getPosition1());
+
+    SimpleAnimation.Builder invalid = new SimpleAnimation.Builder(new SimpleAnimation(), true);
+    invalid.addRectangle("R", 0, 0, 10, 20, 1, 0, 0, 0, 100);
+    invalid.addMove("R", 0, 0, 50, 50, 40, 60);
+    invalid.addMove("R", 0, 0, 20, 30, 50, 70);
+    invalid.addRotateChange("R", 0, 90, 30, 200);
+    invalid.addMove("R", 0, 0, 20, 30, 10, 20);
+    try {
+      invalid.build();
+      fail("Invalid commands were not reported");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().startsWith("2 invalid commands:"));
+      assertTrue(e.getMessage().contains("Invalid move: move R from 50 to 70"));
+    }
+
+    SimpleAnimation.Builder unknown = new SimpleAnimation.Builder(new SimpleAnimation(), true);
+    unknown.addRectangle("R", 0, 0, 10, 20, 1, 0, 0, 0, 100);
+    unknown.addMove("X", 0, 0, 50, 50, 40, 60);
+    unknown.addColorChange("Y", 1, 0, 0, 0, 1, 0, 15, 45);
+    unknown.addScaleToChange("R", 10, 20, 30, 40, 0, 5);
+    try {
+      unknown.build();
+      fail("Commands on unknown shapes were not reported");
+    } catch (IllegalArgumentException e) {
+      assertEquals("2 invalid commands:\nNo shape named X: move X from 40 to 60"
+              + "\nNo shape named Y: change-color Y from 15 to 45", e.getMessage());
+    }
+    SimpleAnimation.Builder ignored = new SimpleAnimation.Builder();
+    ignored.addRectangle("R", 0, 0, 10, 20, 1, 0, 0, 0, 100);
+    ignored.addMove("X", 0, 0, 50, 50, 40, 60);
+    assertEquals(2, ignored.build().getAnimations().size());
+  }
 }
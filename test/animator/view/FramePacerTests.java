@@ -0,0 +1,90 @@
+package animator.view;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class FramePacerTests {
+  private static final long START = 5000000000L;
+  private static final long PERIOD = 16000000L;
+
+  @Test
+  public void onTimeTest() {
+    FramePacer pacer = new FramePacer(START, PERIOD);
+    assertEquals(-1, pacer.getFrameIndex());
+    assertEquals(0, pacer.nanosUntilNextFrame(START));
+
+    assertEquals(0, pacer.advance(START));
+    assertEquals(0, pacer.getFrameIndex());
+    assertEquals(-1, pacer.advance(START + PERIOD - 1));
+    assertEquals(1, pacer.nanosUntilNextFrame(START + PERIOD - 1));
+
+    long dropped = 0;
+    for (int i = 1; i <= 100; i++) {
+      long now = START + (i * PERIOD) + 3;
+      dropped += pacer.advance(now);
+      assertEquals(i, pacer.getFrameIndex());
+      assertEquals(PERIOD - 3, pacer.nanosUntilNextFrame(now));
+      assertEquals(-1, pacer.advance(now + 1));
+    }
+    assertEquals(0, dropped);
+  }
+
+  @Test
+  public void lateFrameTest() {
+    FramePacer pacer = new FramePacer(START, PERIOD);
+    assertEquals(0, pacer.advance(START + 1));
+
+    // The first frame was drawn three and a half periods late, so frames 1 to 3
+    // are skipped and frame 4 is drawn in their place.
+    long now = START + (4 * PERIOD) + (PERIOD / 2);
+    assertEquals(3, pacer.advance(now));
+    assertEquals(4, pacer.getFrameIndex());
+    assertEquals(PERIOD / 2, pacer.nanosUntilNextFrame(now));
+
+    assertEquals(0, pacer.advance(START + (5 * PERIOD)));
+    assertEquals(5, pacer.getFrameIndex());
+
+    // Waking up late after the next frame was due is always caught up from there.
+    assertEquals(0, pacer.nanosUntilNextFrame(START + (7 * PERIOD)));
+    assertEquals(1, pacer.advance(START + (7 * PERIOD)));
+    assertEquals(7, pacer.getFrameIndex());
+  }
+
+  @Test
+  public void lateFirstFrameTest() {
+    FramePacer pacer = new FramePacer(START, PERIOD);
+    assertEquals(0, pacer.advance(START + (10 * PERIOD)));
+    assertEquals(10, pacer.getFrameIndex());
+    assertEquals(PERIOD, pacer.nanosUntilNextFrame(START + (10 * PERIOD)));
+  }
+
+  @Test
+  public void clockBeforeStartTest() {
+    FramePacer pacer = new FramePacer(START, PERIOD);
+    assertEquals(0, pacer.advance(START - PERIOD));
+    assertEquals(0, pacer.getFrameIndex());
+    assertEquals(-1, pacer.advance(START));
+    assertEquals(2 * PERIOD, pacer.nanosUntilNextFrame(START - PERIOD));
+  }
+
+  @Test
+  public void wrappedClockTest() {
+    long start = Long.MAX_VALUE - (PERIOD * 2);
+    FramePacer pacer = new FramePacer(start, PERIOD);
+    assertEquals(0, pacer.advance(start));
+    assertEquals(2, pacer.advance(start + (PERIOD * 3)));
+    assertEquals(3, pacer.getFrameIndex());
+  }
+
+  @Test
+  public void invalidPeriodTest() {
+    try {
+      new FramePacer(START, 0);
+      fail("A period of 0 should not be allowed");
+    } catch (IllegalArgumentException e) {
+      assertEquals("The frame period must be above 0", e.getMessage());
+    }
+  }
+}